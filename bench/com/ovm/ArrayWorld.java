@@ -0,0 +1,205 @@
+package com.ovm;
+
+import java.util.Random;
+
+/**
+ * In-memory stand-in world for the benchmarks: a box of block IDs (and metadata) behind BlockSource.
+ *
+ * Coordinates run from 0 to size - 1 on each axis; everything outside reads as air, as
+ * above and below the world does for ChunkReader. The shape generators are seeded, so every
+ * fork of a benchmark searches the same blocks.
+ */
+final class ArrayWorld implements BlockSource {
+
+    static final int STONE = 1, LOG = 17, LEAVES = 18, IRON_ORE = 15, COAL_ORE = 16;
+
+    final int sizeX, sizeY, sizeZ;
+    private final short[] ids;
+    private final byte[] metas;
+
+    /** Where the benchmark starts its search, and the block it searches for. */
+    int originX, originY, originZ, target;
+
+    /** Target blocks placed by the generator. */
+    int placed;
+
+    ArrayWorld(int sizeX, int sizeY, int sizeZ) {
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.sizeZ = sizeZ;
+        this.ids = new short[sizeX * sizeY * sizeZ];
+        this.metas = new byte[sizeX * sizeY * sizeZ];
+    }
+
+    @Override
+    public int getBlockId(int x, int y, int z) {
+        if (x < 0 || y < 0 || z < 0 || x >= sizeX || y >= sizeY || z >= sizeZ) return 0;
+        return ids[(y * sizeZ + z) * sizeX + x];
+    }
+
+    @Override
+    public int getBlockMetadata(int x, int y, int z) {
+        if (!inside(x, y, z)) return 0;
+        return metas[(y * sizeZ + z) * sizeX + x];
+    }
+
+    void setMeta(int x, int y, int z, int meta) {
+        metas[(y * sizeZ + z) * sizeX + x] = (byte) meta;
+    }
+
+    void set(int x, int y, int z, int id) {
+        ids[(y * sizeZ + z) * sizeX + x] = (short) id;
+    }
+
+    boolean inside(int x, int y, int z) {
+        return x >= 0 && y >= 0 && z >= 0 && x < sizeX && y < sizeY && z < sizeZ;
+    }
+
+    void fill(int id) {
+        java.util.Arrays.fill(ids, (short) id);
+    }
+
+    // -----------------------------------------------------------------------
+    // Shapes (each places up to n target blocks and sets the origin on one of them)
+    // -----------------------------------------------------------------------
+
+    static ArrayWorld create(String shape, int n, long seed) {
+        if (shape.equals("blob"))     return blob(n, seed);
+        if (shape.equals("diagonal")) return diagonal(n, seed);
+        if (shape.equals("tree"))     return tree(n, seed);
+        if (shape.equals("solid"))    return solid(n);
+        throw new IllegalArgumentException("unknown shape: " + shape);
+    }
+
+    /** Face-connected ore blob grown at random from the centre, embedded in stone. */
+    static ArrayWorld blob(int n, long seed) {
+        int side = (int) Math.ceil(Math.cbrt(3.0 * n)) + 4;
+        ArrayWorld w = new ArrayWorld(side, Math.min(side, 256), side);
+        w.fill(STONE);
+        w.target = IRON_ORE;
+        w.originX = side / 2;
+        w.originY = w.sizeY / 2;
+        w.originZ = side / 2;
+        Random rand = new Random(seed);
+        long[] members = new long[n];
+        members[0] = PackedPos.pack(w.originX, w.originY, w.originZ);
+        w.set(w.originX, w.originY, w.originZ, IRON_ORE);
+        w.placed = 1;
+        for (int tries = 0; w.placed < n && tries < 50 * n; tries++) {
+            long from = members[rand.nextInt(w.placed)];
+            int x = PackedPos.x(from), y = PackedPos.y(from), z = PackedPos.z(from);
+            switch (rand.nextInt(6)) {
+                case 0: x++; break;
+                case 1: x--; break;
+                case 2: y++; break;
+                case 3: y--; break;
+                case 4: z++; break;
+                default: z--; break;
+            }
+            if (!w.inside(x, y, z) || w.getBlockId(x, y, z) == IRON_ORE) continue;
+            w.set(x, y, z, IRON_ORE);
+            members[w.placed++] = PackedPos.pack(x, y, z);
+        }
+        return w;
+    }
+
+    /**
+     * Ore vein that only touches itself at edges and corners: a random walk of (±1, ±1, ±1)
+     * steps through stone, so every link needs the diagonal neighbours of the 26-connected fill.
+     */
+    static ArrayWorld diagonal(int n, long seed) {
+        int side = (int) Math.ceil(Math.cbrt(8.0 * n)) + 4;
+        ArrayWorld w = new ArrayWorld(side, Math.min(side, 256), side);
+        w.fill(STONE);
+        w.target = COAL_ORE;
+        Random rand = new Random(seed);
+        int x = side / 2, y = w.sizeY / 2, z = side / 2;
+        w.originX = x;
+        w.originY = y;
+        w.originZ = z;
+        w.set(x, y, z, COAL_ORE);
+        w.placed = 1;
+        int dx = 1, dy = 1, dz = 1;
+        for (int tries = 0; w.placed < n && tries < 50 * n; tries++) {
+            if (rand.nextInt(4) == 0) dx = -dx;
+            if (rand.nextInt(4) == 0) dy = -dy;
+            if (rand.nextInt(4) == 0) dz = -dz;
+            if (!w.inside(x + dx, 0, 0)) dx = -dx;
+            if (!w.inside(0, y + dy, 0)) dy = -dy;
+            if (!w.inside(0, 0, z + dz)) dz = -dz;
+            x += dx;
+            y += dy;
+            z += dz;
+            if (w.getBlockId(x, y, z) == COAL_ORE) continue;
+            w.set(x, y, z, COAL_ORE);
+            w.placed++;
+        }
+        return w;
+    }
+
+    /**
+     * Huge tree: a 2x2 trunk holding about half the logs (up to 200 high), then branches of
+     * diagonal log runs grown from random logs in the upper two thirds, each ending in a
+     * leaf ball. Stands in air, as trees do.
+     */
+    static ArrayWorld tree(int n, long seed) {
+        int side = (int) Math.ceil(Math.sqrt(n / 4.0)) + 24;
+        ArrayWorld w = new ArrayWorld(side, 256, side);
+        w.target = LOG;
+        Random rand = new Random(seed);
+        int cx = side / 2, cz = side / 2;
+        int height = Math.max(1, Math.min(200, n / 8));
+        long[] logs = new long[n];
+        for (int y = 1; y <= height && w.placed < n; y++)
+            for (int i = 0; i < 4 && w.placed < n; i++) {
+                int x = cx + (i & 1), z = cz + (i >> 1);
+                w.set(x, y, z, LOG);
+                logs[w.placed++] = PackedPos.pack(x, y, z);
+            }
+        w.originX = cx;
+        w.originY = 1;
+        w.originZ = cz;
+        int lowest = 1 + height / 3;
+        for (int tries = 0; w.placed < n && tries < 50 * n; tries++) {
+            long from = logs[rand.nextInt(w.placed)];
+            if (PackedPos.y(from) < lowest) continue;
+            int x = PackedPos.x(from), y = PackedPos.y(from), z = PackedPos.z(from);
+            int dx = rand.nextInt(3) - 1, dz = rand.nextInt(3) - 1;
+            if (dx == 0 && dz == 0) continue;
+            int length = 3 + rand.nextInt(6);
+            for (int i = 0; i < length && w.placed < n; i++) {
+                x += dx;
+                z += dz;
+                if ((i & 1) == 1) y++;
+                if (!w.inside(x, y, z)) break;
+                if (w.getBlockId(x, y, z) == LOG) continue;
+                w.set(x, y, z, LOG);
+                logs[w.placed++] = PackedPos.pack(x, y, z);
+            }
+            w.leafBall(x - dx, y, z - dz, 2);
+        }
+        return w;
+    }
+
+    /** A stone volume larger than n, so the search always stops at the cap. */
+    static ArrayWorld solid(int n) {
+        int side = (int) Math.ceil(Math.cbrt(2.0 * n)) + 2;
+        ArrayWorld w = new ArrayWorld(side, Math.min(side, 256), side);
+        w.fill(STONE);
+        w.target = STONE;
+        w.originX = side / 2;
+        w.originY = w.sizeY / 2;
+        w.originZ = side / 2;
+        w.placed = side * w.sizeY * side;
+        return w;
+    }
+
+    private void leafBall(int cx, int cy, int cz, int r) {
+        for (int x = cx - r; x <= cx + r; x++)
+            for (int y = cy - r; y <= cy + r; y++)
+                for (int z = cz - r; z <= cz + r; z++) {
+                    int d = Math.abs(x - cx) + Math.abs(y - cy) + Math.abs(z - cz);
+                    if (d <= r + 1 && inside(x, y, z) && getBlockId(x, y, z) == 0) set(x, y, z, LEAVES);
+                }
+    }
+}
@@ -0,0 +1,148 @@
+package com.ovm;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Checks TreeFelling.findOrphans against the rule BlockLeaves.updateTick applies to each leaf:
+ * in the box of radius REACH around the leaf, logs are 0, leaves -2 and anything else -1;
+ * REACH rounds give every -2 leaf next to a cell holding round - 1 the value round, and the leaf
+ * stays if its own cell ends up non-negative. The expected orphans are the leaves the rule
+ * keeps before the felling and drops after it. Random volumes of logs and leaves with random
+ * or connected sets of felled logs, then a few generated trees felled whole.
+ *
+ * Run with scripts/check.sh; exits 1 on the first world whose orphans differ.
+ */
+public final class LeafDecayCheck {
+
+    private static final int VOLUMES = 500;
+    private static final int TREES = 20;
+    private static final int R = TreeFelling.REACH;
+
+    public static void main(String[] args) {
+        Random rand = new Random(args.length > 0 ? Long.parseLong(args[0]) : 0x1EAF);
+        for (int v = 0; v < VOLUMES + TREES; v++) {
+            ArrayWorld before;
+            if (v < VOLUMES) {
+                int side = 6 + rand.nextInt(8);
+                before = new ArrayWorld(side, side, side);
+                double logs = 0.03 + rand.nextDouble() * 0.12, leaves = 0.3 + rand.nextDouble() * 0.4;
+                for (int x = 0; x < side; x++)
+                    for (int y = 0; y < side; y++)
+                        for (int z = 0; z < side; z++) {
+                            double r = rand.nextDouble();
+                            before.set(x, y, z, r < logs ? ArrayWorld.LOG : r < logs + leaves ? ArrayWorld.LEAVES
+                                                : rand.nextBoolean() ? ArrayWorld.STONE : 0);
+                        }
+            } else {
+                before = ArrayWorld.tree(200 + rand.nextInt(600), rand.nextLong());
+            }
+
+            long[] felled = fell(before, rand, v >= VOLUMES);
+            ArrayWorld after = copy(before);
+            for (long p : felled) after.set(PackedPos.x(p), PackedPos.y(p), PackedPos.z(p), 0);
+
+            long[] expected = reference(before, after, felled);
+            long[] actual = TreeFelling.findOrphans(after, felled, felled.length);
+            Arrays.sort(actual);
+            if (!Arrays.equals(expected, actual)) {
+                System.out.println("world " + v + " (" + felled.length + " logs felled): expected "
+                    + expected.length + " orphans, got " + actual.length);
+                System.exit(1);
+            }
+        }
+        System.out.println("LeafDecayCheck: " + (VOLUMES + TREES) + " worlds match");
+    }
+
+    /** Logs to fell: the component of a random log (whole tree), or a random subset of all logs. */
+    private static long[] fell(ArrayWorld w, Random rand, boolean wholeTree) {
+        long[] logs = new long[64];
+        int count = 0;
+        for (int x = 0; x < w.sizeX; x++)
+            for (int y = 0; y < w.sizeY; y++)
+                for (int z = 0; z < w.sizeZ; z++) {
+                    if (w.getBlockId(x, y, z) != ArrayWorld.LOG) continue;
+                    if (count == logs.length) logs = Arrays.copyOf(logs, count * 2);
+                    logs[count++] = PackedPos.pack(x, y, z);
+                }
+        if (count == 0) return new long[0];
+        if (wholeTree || rand.nextBoolean()) {
+            long o = wholeTree ? PackedPos.pack(w.originX, w.originY, w.originZ) : logs[rand.nextInt(count)];
+            return VeinMiner.buildVein(w, PackedPos.x(o), PackedPos.y(o), PackedPos.z(o), ArrayWorld.LOG,
+                                       Integer.MAX_VALUE);
+        }
+        double p = 0.2 + rand.nextDouble() * 0.8;
+        long[] felled = new long[count];
+        int n = 0;
+        for (int i = 0; i < count; i++) if (rand.nextDouble() < p) felled[n++] = logs[i];
+        return Arrays.copyOf(felled, n);
+    }
+
+    private static ArrayWorld copy(ArrayWorld w) {
+        ArrayWorld c = new ArrayWorld(w.sizeX, w.sizeY, w.sizeZ);
+        for (int x = 0; x < w.sizeX; x++)
+            for (int y = 0; y < w.sizeY; y++)
+                for (int z = 0; z < w.sizeZ; z++)
+                    c.set(x, y, z, w.getBlockId(x, y, z));
+        return c;
+    }
+
+    /**
+     * Leaves of after that the rule keeps in before and drops in after, sorted. Only leaves
+     * whose box holds a felled log can change, so the scan covers the felled logs' box plus R.
+     */
+    private static long[] reference(ArrayWorld before, ArrayWorld after, long[] felled) {
+        long[] out = new long[64];
+        int n = 0;
+        if (felled.length == 0) return new long[0];
+        int x0 = Integer.MAX_VALUE, y0 = Integer.MAX_VALUE, z0 = Integer.MAX_VALUE;
+        int x1 = Integer.MIN_VALUE, y1 = Integer.MIN_VALUE, z1 = Integer.MIN_VALUE;
+        for (long p : felled) {
+            x0 = Math.min(x0, PackedPos.x(p)); x1 = Math.max(x1, PackedPos.x(p));
+            y0 = Math.min(y0, PackedPos.y(p)); y1 = Math.max(y1, PackedPos.y(p));
+            z0 = Math.min(z0, PackedPos.z(p)); z1 = Math.max(z1, PackedPos.z(p));
+        }
+        for (int x = x0 - R; x <= x1 + R; x++)
+            for (int y = y0 - R; y <= y1 + R; y++)
+                for (int z = z0 - R; z <= z1 + R; z++) {
+                    if (after.getBlockId(x, y, z) != ArrayWorld.LEAVES) continue;
+                    if (!keeps(before, x, y, z) || keeps(after, x, y, z)) continue;
+                    if (n == out.length) out = Arrays.copyOf(out, n * 2);
+                    out[n++] = PackedPos.pack(x, y, z);
+                }
+        out = Arrays.copyOf(out, n);
+        Arrays.sort(out);
+        return out;
+    }
+
+    /** BlockLeaves.updateTick's support test for the leaf at x, y, z. */
+    private static boolean keeps(ArrayWorld w, int x, int y, int z) {
+        int size = 2 * R + 1;
+        int[][][] cell = new int[size][size][size];
+        for (int i = 0; i < size; i++)
+            for (int j = 0; j < size; j++)
+                for (int k = 0; k < size; k++) {
+                    int id = w.getBlockId(x + i - R, y + j - R, z + k - R);
+                    cell[i][j][k] = id == ArrayWorld.LOG ? 0 : id == ArrayWorld.LEAVES ? -2 : -1;
+                }
+        for (int round = 1; round <= R; round++)
+            for (int i = 0; i < size; i++)
+                for (int j = 0; j < size; j++)
+                    for (int k = 0; k < size; k++) {
+                        if (cell[i][j][k] != round - 1) continue;
+                        spread(cell, i - 1, j, k, round);
+                        spread(cell, i + 1, j, k, round);
+                        spread(cell, i, j - 1, k, round);
+                        spread(cell, i, j + 1, k, round);
+                        spread(cell, i, j, k - 1, round);
+                        spread(cell, i, j, k + 1, round);
+                    }
+        return cell[R][R][R] >= 0;
+    }
+
+    private static void spread(int[][][] cell, int i, int j, int k, int round) {
+        int size = cell.length;
+        if (i < 0 || j < 0 || k < 0 || i >= size || j >= size || k >= size) return;
+        if (cell[i][j][k] == -2) cell[i][j][k] = round;
+    }
+}
@@ -0,0 +1,63 @@
+package com.ovm;
+
+/**
+ * Checks the documented heap ceiling of a streamed search: the dense window (at most
+ * 245 KiB), OvmConfig.searchMemoryKiB and one batch. A 100,000-block search is streamed
+ * batch by batch, as a large VeinMiner job does, and the heap it retains (after GC, shared
+ * sphere table excluded) is sampled along the way. Solid stone, a compact blob and a diagonal
+ * vein, each under the default cap and under a 1 MiB cap that the larger veins run into.
+ *
+ * Run with scripts/check.sh; exits 1 if any sample exceeds the ceiling.
+ */
+public final class SearchMemoryCheck {
+
+    private static final int BLOCKS = 100000;
+    private static final long WINDOW_BYTES = 245 * 1024L;
+    private static final int SAMPLES = 20;
+
+    public static void main(String[] args) {
+        String[] shapes = { "solid", "blob", "diagonal" };
+        int[] caps = { OvmConfig.searchMemoryKiB, 1024 };
+        // Shared by every search and bounded separately (8 bytes per position): build it first
+        VeinSearch.sphereTable(BLOCKS + 1);
+        boolean ok = true;
+        for (String shape : shapes) {
+            ArrayWorld w = ArrayWorld.create(shape, BLOCKS, 42);
+            for (int cap : caps) {
+                OvmConfig.searchMemoryKiB = cap;
+                long ceiling = WINDOW_BYTES + cap * 1024L + OvmConfig.blocksPerBatch * 8L;
+                long peak = stream(w);
+                System.out.println(String.format("%-8s cap %6d KiB: peak %6d KiB retained, ceiling %6d KiB",
+                    shape, cap, peak / 1024, ceiling / 1024));
+                if (peak > ceiling) ok = false;
+            }
+        }
+        if (!ok) {
+            System.out.println("SearchMemoryCheck: retained heap above the ceiling");
+            System.exit(1);
+        }
+        System.out.println("SearchMemoryCheck: all searches within the ceiling");
+    }
+
+    /** Stream the search over w batch by batch; the largest retained heap seen. */
+    private static long stream(ArrayWorld w) {
+        long base = usedAfterGc();
+        VeinSearch search = new VeinSearch(w, w.originX, w.originY, w.originZ, w.target, BLOCKS);
+        int every = Math.max(BLOCKS / OvmConfig.blocksPerBatch / SAMPLES, 1);
+        long peak = 0;
+        for (int batch = 0; !search.isExhausted(); batch++) {
+            long[] positions = search.take(OvmConfig.blocksPerBatch);
+            if (batch % every == 0) peak = Math.max(peak, usedAfterGc() - base);
+            if (positions.length == 0) break;
+        }
+        peak = Math.max(peak, usedAfterGc() - base);
+        if (search.count() < 0) throw new AssertionError();     // keeps search reachable until here
+        return peak;
+    }
+
+    private static long usedAfterGc() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
@@ -0,0 +1,70 @@
+package com.ovm;
+
+import java.util.Random;
+
+/**
+ * Checks that a search over a ChunkSnapshot, paused at every section it reaches before the
+ * section is copied and resumed afterwards (as AsyncSearch runs it), returns exactly what
+ * VeinMiner.buildVein returns over the whole world. Random volumes of ore in stone, big
+ * enough to cross section borders, each seeded with only the origin's section or with none.
+ *
+ * Run with scripts/check.sh; exits 1 on the first volume whose output differs.
+ */
+public final class SnapshotResumeCheck {
+
+    private static final int VOLUMES = 300;
+
+    public static void main(String[] args) {
+        Random rand = new Random(args.length > 0 ? Long.parseLong(args[0]) : 0x5AFE);
+        int rounds = 0;
+        for (int v = 0; v < VOLUMES; v++) {
+            int side = 8 + rand.nextInt(33);
+            ArrayWorld w = new ArrayWorld(side, side, side);
+            double density = 0.2 + rand.nextDouble() * 0.6;
+            for (int x = 0; x < side; x++)
+                for (int y = 0; y < side; y++)
+                    for (int z = 0; z < side; z++)
+                        w.set(x, y, z, rand.nextDouble() < density ? ArrayWorld.IRON_ORE : ArrayWorld.STONE);
+            int ox = rand.nextInt(side), oy = rand.nextInt(side), oz = rand.nextInt(side);
+            int target = rand.nextInt(4) == 0 ? ArrayWorld.STONE : ArrayWorld.IRON_ORE;
+            int maxCount = rand.nextBoolean() ? 1 + rand.nextInt(side * side * side) : side * side * side;
+
+            ChunkSnapshot snap = new ChunkSnapshot();
+            if (rand.nextBoolean()) copy(w, snap, ox >> 4, oz >> 4, oy >> 4);
+            VeinSearch search = new VeinSearch(snap, ox, oy, oz, target, maxCount);
+            while (true) {
+                try {
+                    search.run();
+                    break;
+                } catch (ChunkSnapshot.Missing m) {
+                    for (int i = 0; i < snap.missingCount(); i++)
+                        copy(w, snap, snap.missingX(i), snap.missingZ(i), snap.missingY(i));
+                    snap.clearMissing();
+                    rounds++;
+                }
+            }
+
+            long[] expected = VeinMiner.buildVein(w, ox, oy, oz, target, maxCount);
+            if (!java.util.Arrays.equals(expected, search.result())) {
+                System.out.println("volume " + v + " (side " + side + ", cap " + maxCount + "): expected "
+                    + expected.length + " positions, got " + search.result().length);
+                System.exit(1);
+            }
+        }
+        System.out.println("SnapshotResumeCheck: " + VOLUMES + " volumes match (" + rounds + " pauses)");
+    }
+
+    /** Copy one section of w into the snapshot, laid out as ExtendedBlockStorage holds it. */
+    private static void copy(ArrayWorld w, ChunkSnapshot snap, int cx, int cz, int sy) {
+        byte[] lsb = new byte[4096], msb = new byte[2048], meta = new byte[2048];
+        for (int idx = 0; idx < 4096; idx++) {
+            int x = cx << 4 | (idx & 15), z = cz << 4 | (idx >> 4 & 15), y = sy << 4 | idx >> 8;
+            int id = w.getBlockId(x, y, z), m = w.getBlockMetadata(x, y, z);
+            lsb[idx] = (byte) id;
+            int shift = (idx & 1) == 0 ? 0 : 4;
+            msb[idx >> 1] |= (id >> 8 & 15) << shift;
+            meta[idx >> 1] |= (m & 15) << shift;
+        }
+        snap.put(cx, cz, sy, lsb, msb, meta);
+    }
+}
@@ -0,0 +1,131 @@
+package com.ovm;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Checks VeinMiner.buildVein against the original traversal: a PriorityQueue of (squared
+ * distance, discovery sequence) with a HashSet of visited positions, as buildVein was before
+ * VeinQueue, with ties broken in discovery order. Random volumes of random density, target
+ * and cap, origins on and off the target (the vanilla break leaves air at the origin). Then
+ * volumes of wool in random colours under block groups split by metadata (WOOL_GROUPS), where
+ * only the colours of the origin's group may join.
+ *
+ * Run with scripts/check.sh; exits 1 on the first volume whose output differs.
+ */
+public final class VeinOrderCheck {
+
+    private static final int VOLUMES = 2000;
+    private static final int WOOL_VOLUMES = 500;
+    private static final int WOOL = 35;
+    // Orange and yellow are one vein, magenta another; every other colour is a vein of its own
+    private static final String WOOL_GROUPS = "35/1,35/4;35/2";
+
+    public static void main(String[] args) {
+        Random rand = new Random(args.length > 0 ? Long.parseLong(args[0]) : 0x5EED);
+        for (int v = 0; v < VOLUMES; v++) {
+            int side = 4 + rand.nextInt(21);
+            ArrayWorld w = new ArrayWorld(side, side, side);
+            double density = 0.1 + rand.nextDouble() * 0.8;
+            int[] palette = { ArrayWorld.STONE, ArrayWorld.IRON_ORE, ArrayWorld.COAL_ORE };
+            for (int x = 0; x < side; x++)
+                for (int y = 0; y < side; y++)
+                    for (int z = 0; z < side; z++)
+                        w.set(x, y, z, rand.nextDouble() < density
+                            ? ArrayWorld.IRON_ORE
+                            : palette[rand.nextInt(palette.length)]);
+            int ox = rand.nextInt(side), oy = rand.nextInt(side), oz = rand.nextInt(side);
+            if (rand.nextBoolean()) w.set(ox, oy, oz, 0);
+            int target = rand.nextInt(4) == 0 ? ArrayWorld.STONE : ArrayWorld.IRON_ORE;
+            int maxCount = rand.nextBoolean() ? 1 + rand.nextInt(side * side * side) : side * side * side;
+
+            long[] expected = reference(w, ox, oy, oz, target, 0xFFFF, maxCount);
+            long[] actual = VeinMiner.buildVein(w, ox, oy, oz, target, maxCount);
+            compare(v, side, maxCount, expected, actual);
+        }
+
+        BlockGroups.compile(WOOL_GROUPS, false);
+        for (int v = 0; v < WOOL_VOLUMES; v++) {
+            int side = 4 + rand.nextInt(13);
+            ArrayWorld w = new ArrayWorld(side, side, side);
+            int colours = 2 + rand.nextInt(5);
+            for (int x = 0; x < side; x++)
+                for (int y = 0; y < side; y++)
+                    for (int z = 0; z < side; z++) {
+                        if (rand.nextInt(8) == 0) continue;
+                        w.set(x, y, z, WOOL);
+                        w.setMeta(x, y, z, rand.nextInt(colours));
+                    }
+            int ox = rand.nextInt(side), oy = rand.nextInt(side), oz = rand.nextInt(side);
+            int colour = rand.nextInt(colours);
+            int metas = colour == 1 || colour == 4 ? 1 << 1 | 1 << 4 : 1 << colour;
+            int target = BlockGroups.canonical(BlockGroups.key(WOOL, colour));
+            int maxCount = rand.nextBoolean() ? 1 + rand.nextInt(side * side * side) : side * side * side;
+
+            long[] expected = reference(w, ox, oy, oz, WOOL, metas, maxCount);
+            long[] actual = VeinMiner.buildVein(w, ox, oy, oz, target, maxCount);
+            compare(VOLUMES + v, side, maxCount, expected, actual);
+        }
+        System.out.println("VeinOrderCheck: " + (VOLUMES + WOOL_VOLUMES) + " volumes match");
+    }
+
+    private static void compare(int v, int side, int maxCount, long[] expected, long[] actual) {
+        if (java.util.Arrays.equals(expected, actual)) return;
+        System.out.println("volume " + v + " (side " + side + ", cap " + maxCount + "): expected "
+            + expected.length + " positions, got " + actual.length + ", first difference at "
+            + firstDifference(expected, actual));
+        System.exit(1);
+    }
+
+    /** Blocks of ID target whose metadata is in the metas bitmask join the vein. */
+    private static long[] reference(ArrayWorld w, int ox, int oy, int oz, int target, int metas, int maxCount) {
+        PriorityQueue<long[]> pq = new PriorityQueue<long[]>(16, new Comparator<long[]>() {
+            @Override
+            public int compare(long[] a, long[] b) {
+                return a[0] != b[0] ? (a[0] < b[0] ? -1 : 1) : (a[1] < b[1] ? -1 : a[1] > b[1] ? 1 : 0);
+            }
+        });
+        Set<Long> visited = new HashSet<Long>();
+        List<Long> result = new ArrayList<Long>();
+        long seq = 0;
+        long origin = PackedPos.pack(ox, oy, oz);
+        visited.add(origin);
+        pq.add(new long[]{ 0, seq++, origin });
+        while (!pq.isEmpty() && result.size() < maxCount) {
+            long p = pq.poll()[2];
+            int bx = PackedPos.x(p), by = PackedPos.y(p), bz = PackedPos.z(p);
+            boolean matches = member(w, bx, by, bz, target, metas);
+            if (!matches && p != origin) continue;
+            if (matches) result.add(p);
+            for (int dx = -1; dx <= 1; dx++)
+                for (int dy = -1; dy <= 1; dy++)
+                    for (int dz = -1; dz <= 1; dz++) {
+                        if (dx == 0 && dy == 0 && dz == 0) continue;
+                        int nx = bx + dx, ny = by + dy, nz = bz + dz;
+                        long n = PackedPos.pack(nx, ny, nz);
+                        if (!visited.add(n) || !member(w, nx, ny, nz, target, metas)) continue;
+                        long ddx = nx - ox, ddy = ny - oy, ddz = nz - oz;
+                        pq.add(new long[]{ ddx * ddx + ddy * ddy + ddz * ddz, seq++, n });
+                    }
+        }
+        long[] out = new long[result.size()];
+        for (int i = 0; i < out.length; i++) out[i] = result.get(i);
+        return out;
+    }
+
+    private static boolean member(ArrayWorld w, int x, int y, int z, int target, int metas) {
+        return w.getBlockId(x, y, z) == target && (metas >> w.getBlockMetadata(x, y, z) & 1) != 0;
+    }
+
+    private static int firstDifference(long[] a, long[] b) {
+        int n = Math.min(a.length, b.length);
+        for (int i = 0; i < n; i++)
+            if (a[i] != b[i]) return i;
+        return n;
+    }
+}
@@ -0,0 +1,74 @@
+package com.ovm;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Vein search over an ArrayWorld, per shape and vein size.
+ *
+ * search: VeinMiner.buildVein as the server runs it (including its OvmStats record).
+ * searchSliced: the same fill advanced in PREVIEW_SLICE_NANOS slices, as VeinPreview does
+ * per frame, to show what resuming costs over one run.
+ * searchStreamed: the large-operation path, taking STREAM_BATCH positions at a time as a
+ * streamed job does (OvmConfig.streamAbove), so no full result list is kept.
+ *
+ * Run with scripts/bench.sh, which adds the gc profiler: gc.alloc.rate.norm is the bytes
+ * allocated per search.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VeinSearchBench {
+
+    private static final long PREVIEW_SLICE_NANOS = 100000L;
+    private static final int STREAM_BATCH = 16;
+
+    @Param({ "blob", "diagonal", "tree", "solid" })
+    public String shape;
+
+    @Param({ "8", "64", "512", "4096", "32768", "100000" })
+    public int size;
+
+    private ArrayWorld world;
+
+    @Setup
+    public void setup() {
+        world = ArrayWorld.create(shape, size, 0x0BADC0DEL);
+        long[] vein = VeinMiner.buildVein(world, world.originX, world.originY, world.originZ, world.target, size);
+        if (vein.length != Math.min(size, world.placed))
+            throw new IllegalStateException(shape + "/" + size + ": found " + vein.length + " of " + world.placed);
+    }
+
+    @Benchmark
+    public long[] search() {
+        return VeinMiner.buildVein(world, world.originX, world.originY, world.originZ, world.target, size);
+    }
+
+    @Benchmark
+    public long[] searchSliced() {
+        VeinSearch s = new VeinSearch(world, world.originX, world.originY, world.originZ, world.target, size);
+        while (!s.advance(System.nanoTime() + PREVIEW_SLICE_NANOS)) {}
+        return s.result();
+    }
+
+    @Benchmark
+    public int searchStreamed() {
+        VeinSearch s = new VeinSearch(world, world.originX, world.originY, world.originZ, world.target, size);
+        int found = 0;
+        while (!s.isExhausted()) found += s.take(STREAM_BATCH).length;
+        return found;
+    }
+}
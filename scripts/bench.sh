@@ -0,0 +1,30 @@
+#!/bin/bash
+# Run the JMH benchmarks in bench/ (vein search over an in-memory world).
+# Run from anywhere; extra arguments go to JMH (e.g. "VeinSearchBench -p shape=tree").
+# Output: bench_output.txt in repo root.
+set -e
+
+REPO="$(cd "$(dirname "$0")/.." && pwd)"
+IMAGE=veinminer-dev
+JMH_VERSION=1.37
+LIB="$REPO/download/jmh"
+MAVEN=https://repo1.maven.org/maven2
+
+# JMH and its dependencies, fetched once next to the other downloads
+mkdir -p "$LIB"
+fetch() {
+  [ -f "$LIB/$(basename "$1")" ] || curl -fsSL -o "$LIB/$(basename "$1")" "$MAVEN/$1"
+}
+fetch org/openjdk/jmh/jmh-core/$JMH_VERSION/jmh-core-$JMH_VERSION.jar
+fetch org/openjdk/jmh/jmh-generator-annprocess/$JMH_VERSION/jmh-generator-annprocess-$JMH_VERSION.jar
+fetch net/sf/jopt-simple/jopt-simple/5.0.4/jopt-simple-5.0.4.jar
+fetch org/apache/commons/commons-math3/3.6.1/commons-math3-3.6.1.jar
+
+docker run --rm -v "$REPO:/workspace" $IMAGE bash -c "
+  set -e
+  bash /workspace/scripts/compile.sh > /dev/null
+  CP=/opt/forge/bin/minecraft:/opt/forge/lib/*:/workspace/download/jmh/*
+  mkdir -p /tmp/bench
+  javac -encoding UTF-8 -cp \"\$CP\" -d /tmp/bench /workspace/bench/com/ovm/*.java
+  java -cp \"/tmp/bench:\$CP\" org.openjdk.jmh.Main -prof gc $*
+" | tee "$REPO/bench_output.txt"
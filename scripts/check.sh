@@ -0,0 +1,18 @@
+#!/bin/bash
+# Run the correctness checks in bench/ (*Check.java) against the in-memory world.
+# Run from anywhere; exits non-zero if any check fails.
+set -e
+
+REPO="$(cd "$(dirname "$0")/.." && pwd)"
+IMAGE=veinminer-dev
+
+docker run --rm -v "$REPO:/workspace" $IMAGE bash -c "
+  set -e
+  bash /workspace/scripts/compile.sh > /dev/null
+  CP=/opt/forge/bin/minecraft:/opt/forge/lib/*
+  mkdir -p /tmp/check
+  javac -encoding UTF-8 -cp \"\$CP\" -d /tmp/check /workspace/bench/com/ovm/ArrayWorld.java /workspace/bench/com/ovm/*Check.java
+  for c in /workspace/bench/com/ovm/*Check.java; do
+    java -cp \"/tmp/check:\$CP\" com.ovm.\$(basename \"\$c\" .java)
+  done
+"
@@ -0,0 +1,121 @@
+package com.ovm;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Runs vein searches on a small worker pool (OvmConfig.searchThreads) over ChunkSnapshots.
+ *
+ * The main thread copies the sections within SEED_RADIUS blocks of the origin and submits
+ * the task. The worker runs the task's VeinSearch until it ends or reads a section that is
+ * not copied yet (ChunkSnapshot.MISSING), then puts the task on a bounded completion queue.
+ * VeinScheduler drains the queue each tick: a paused search gets the sections it asked for
+ * copied on the main thread and resumes where it stopped; a finished one hands its vein to
+ * the job. Only sections the search reaches are ever copied. A search still paused after
+ * MAX_ROUNDS is dropped and run again on the main thread over a ChunkReader, so no result
+ * cut short by missing sections reaches the job or VeinCache. Mining re-checks every
+ * position with BlockGroups.matchesMeta, so changes made after the copy are never mined blindly.
+ */
+final class AsyncSearch implements Runnable {
+
+    private static final int MAX_ROUNDS = 16;
+    private static final int SEED_RADIUS = 4;
+
+    private static ExecutorService pool;
+    private static ArrayBlockingQueue<AsyncSearch> completed;
+
+    private final VeinMiner.Job job;
+    private final ArrayBlockingQueue<AsyncSearch> done = completed;   // survives shutdown()
+    private final ChunkSnapshot snapshot = new ChunkSnapshot();
+    private VeinSearch search;      // created on the worker, kept across rounds
+    private int rounds;
+    private long nanos;
+    private volatile boolean finished, failed;
+
+    private AsyncSearch(VeinMiner.Job job) {
+        this.job = job;
+    }
+
+    /** Off-thread search needs validated section reads (workers cannot fall back to World.getBlockId). */
+    static boolean isAvailable() {
+        return OvmConfig.searchThreads > 0 && ChunkReader.isFastPathValidated();
+    }
+
+    /** Main thread: start the search for a job whose vein is not known yet. */
+    static void submit(VeinMiner.Job job) {
+        if (pool == null) {
+            pool = Executors.newFixedThreadPool(OvmConfig.searchThreads, new ThreadFactory() {
+                private int count;
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "OVM search " + (++count));
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+            int capacity = Math.max(OvmConfig.maxActiveJobs, 1) + OvmConfig.searchThreads;
+            completed = new ArrayBlockingQueue<AsyncSearch>(capacity);
+        }
+        AsyncSearch task = new AsyncSearch(job);
+        task.snapshot.seed(job.world, job.ox, job.oy, job.oz, SEED_RADIUS);
+        pool.execute(task);
+    }
+
+    @Override
+    public void run() {
+        long start = System.nanoTime();
+        try {
+            if (search == null)
+                search = new VeinSearch(snapshot, job.ox, job.oy, job.oz, job.originId, job.searchLimit());
+            search.run();
+            finished = true;
+        } catch (ChunkSnapshot.Missing m) {
+            // Paused: the main thread copies the sections and resubmits
+        } catch (Throwable t) {
+            OvmLog.error("async search error: {}", t);
+            failed = true;
+        }
+        nanos += System.nanoTime() - start;
+        try {
+            done.put(this);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Main thread: hand finished searches to their jobs, resume those that need more sections. */
+    static void drain() {
+        if (completed == null) return;
+        AsyncSearch task;
+        while ((task = completed.poll()) != null) {
+            VeinMiner.Job job = task.job;
+            if (task.finished) {
+                VeinSearch s = task.search;
+                OvmStats.searched(task.nanos, s.count(), s.probes());
+                if (s.wasCapped())
+                    OvmLog.info("vein search at ({},{},{}) stopped at the searchMemoryKiB cap", job.ox, job.oy, job.oz);
+                job.setVein(s.result(), true);
+            } else if (!task.failed && ++task.rounds < MAX_ROUNDS) {
+                task.snapshot.copyMissing(job.world);
+                pool.execute(task);
+            } else {
+                // Worker failed or the vein kept leaving the copied sections: search on the main thread
+                if (!task.failed)
+                    OvmLog.info("async search at ({},{},{}) still incomplete; searching on the server thread",
+                                job.ox, job.oy, job.oz);
+                job.setVein(VeinMiner.buildVein(new ChunkReader(job.world, job.ox, job.oy, job.oz),
+                                                job.ox, job.oy, job.oz, job.originId, job.searchLimit()), true);
+            }
+        }
+    }
+
+    /** Main thread, server stopping: interrupt running searches and drop finished ones. */
+    static void shutdown() {
+        if (pool == null) return;
+        pool.shutdownNow();
+        pool = null;
+        completed = null;
+    }
+}
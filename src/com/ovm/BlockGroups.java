@@ -0,0 +1,266 @@
+package com.ovm;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Blocks mined as one vein: OvmConfig.blockGroups plus, with oreDictionaryGroups, every
+ * OreDictionary "ore*" name, compiled in PostInit (after mods register their ores).
+ *
+ * Groups are made of block keys. An ID that any entry names with /meta (or that the ore
+ * dictionary registers with a damage value) is split: each of its 16 metadata values is a
+ * key of its own, id | meta << 12, so "35/1;35/2" keeps orange and magenta wool apart. Every
+ * other ID is one key, the ID itself, whatever its metadata. An entry without /meta takes all
+ * keys of its ID. Groups that share a key are merged.
+ *
+ * canon maps each key to its group's lowest key (the key itself when ungrouped). A vein's
+ * target is the origin's canonical key, so the flood fill's membership test is one array load,
+ * whatever the number of groups; the fill reads metadata only for split IDs (key).
+ *
+ * Also compiled here: the tree blocks TreeFelling works with, vanilla log and leaves plus
+ * every block registered as OreDictionary "logWood" or "treeLeaves".
+ */
+final class BlockGroups {
+
+    static final int IDS = 4096;
+    private static final int KEYS = IDS << 4;
+    private static final int LOG = 17, LEAVES = 18;
+
+    // Written in PostInit, before the server starts its threads; read-only afterwards
+    private static final char[] canon = new char[KEYS];
+    private static final boolean[] split = new boolean[IDS];
+    private static boolean anySplit;
+    private static final boolean[] logs = new boolean[IDS];
+    private static final boolean[] leaves = new boolean[IDS];
+    static {
+        reset();
+    }
+
+    private BlockGroups() {}
+
+    /** True if the group of blockId depends on its metadata. */
+    static boolean needsMeta(int blockId) {
+        return blockId > 0 && blockId < IDS && split[blockId];
+    }
+
+    /** True if any ID is split by metadata (searches then read metadata for those IDs). */
+    static boolean hasMetaGroups() {
+        return anySplit;
+    }
+
+    /** Block key of a block: the ID, with the metadata folded in for split IDs. */
+    static int key(int blockId, int meta) {
+        return needsMeta(blockId) ? blockId | (meta & 15) << 12 : blockId;
+    }
+
+    /** Block key at a world position (reads metadata only for split IDs). */
+    static int keyAt(Object world, int x, int y, int z) {
+        int id = McAccessor.getBlockId(world, x, y, z);
+        return needsMeta(id) ? key(id, McAccessor.getBlockMeta(world, x, y, z)) : id;
+    }
+
+    /** Block ID of a key. */
+    static int idOf(int key) {
+        return key & (IDS - 1);
+    }
+
+    /** Canonical key of the key's group (target of a vein). */
+    static int canonical(int key) {
+        return key >= 0 && key < KEYS ? canon[key] : key;
+    }
+
+    /** True if the block key is in the target group; target is a canonical key. */
+    static boolean matches(int key, int target) {
+        return canon[key] == target;
+    }
+
+    /** True if blockId with metadata meta is in the target group; target is a canonical key. */
+    static boolean matchesMeta(int blockId, int meta, int target) {
+        return canon[key(blockId, meta)] == target;
+    }
+
+    /** True if id is a log for TreeFelling. */
+    static boolean isLog(int id) {
+        return id > 0 && id < IDS && logs[id];
+    }
+
+    /** True if id is a leaves block for TreeFelling. */
+    static boolean isLeaves(int id) {
+        return id > 0 && id < IDS && leaves[id];
+    }
+
+    /** Compile the configured groups. Main thread, PostInit. */
+    static void compile(String spec, boolean oreDictionary) {
+        reset();
+
+        // Entries as id << 5 | (meta + 1), all read first: a /meta anywhere splits the ID everywhere
+        List<int[]> entries = new ArrayList<int[]>();
+        for (String group : spec.split(";")) {
+            int[] members = new int[16];
+            int count = 0;
+            for (String entry : group.split(",")) {
+                entry = entry.trim();
+                if (entry.length() == 0) continue;
+                members = grow(members, count);
+                if (entry.startsWith("ore:")) {
+                    int[] ores = ores(entry.substring(4).trim());
+                    for (int e : ores) { members = grow(members, count); members[count++] = e; }
+                } else {
+                    int e = parseEntry(entry);
+                    if (e >= 0) members[count++] = e;
+                }
+            }
+            entries.add(java.util.Arrays.copyOf(members, count));
+        }
+        if (oreDictionary) {
+            for (String name : oreNames())
+                if (name.startsWith("ore")) entries.add(ores(name));
+        }
+        for (int[] members : entries)
+            for (int e : members)
+                if ((e & 31) != 0) split[e >> 5] = true;
+        for (int id = 0; id < IDS; id++) anySplit |= split[id];
+
+        // Union every group's keys; union keeps the lower key as the root, the group's lowest key
+        int[] parent = new int[KEYS];
+        for (int k = 0; k < KEYS; k++) parent[k] = k;
+        int groups = 0;
+        for (int[] members : entries) {
+            int first = -1, keys = 0;
+            for (int e : members) {
+                int id = e >> 5, meta = (e & 31) - 1;
+                for (int m = 0; m < 16; m++) {
+                    if (meta >= 0 ? m != meta : m > 0 && !split[id]) continue;
+                    int k = key(id, m);
+                    if (first < 0) first = k;
+                    else if (find(parent, k) != find(parent, first)) keys++;
+                    union(parent, first, k);
+                }
+            }
+            if (keys > 0) groups++;
+        }
+        for (int k = 0; k < KEYS; k++) {
+            int id = idOf(k);
+            // Unsplit IDs: every metadata reads as the ID's own key
+            canon[k] = (char) find(parent, split[id] ? k : id);
+        }
+        OvmLog.info("Block groups: {} from config and ore dictionary", groups);
+
+        int treeBlocks = markOres("logWood", logs) + markOres("treeLeaves", leaves);
+        OvmLog.info("Tree blocks: {} from ore dictionary", treeBlocks);
+    }
+
+    private static void reset() {
+        for (int k = 0; k < KEYS; k++) canon[k] = (char) idOf(k);
+        for (int i = 0; i < IDS; i++) {
+            split[i] = false;
+            logs[i] = false;
+            leaves[i] = false;
+        }
+        anySplit = false;
+        logs[LOG] = true;
+        leaves[LEAVES] = true;
+    }
+
+    private static int[] grow(int[] a, int count) {
+        return count < a.length ? a : java.util.Arrays.copyOf(a, a.length * 2);
+    }
+
+    /** Flag the blocks registered under an OreDictionary name. Returns how many there are. */
+    private static int markOres(String name, boolean[] flags) {
+        int[] ores = ores(name);
+        for (int e : ores) flags[e >> 5] = true;
+        return ores.length;
+    }
+
+    /** "id" or "id/meta" as id << 5 | (meta + 1); -1 if malformed. */
+    private static int parseEntry(String entry) {
+        try {
+            int slash = entry.indexOf('/');
+            int id = Integer.parseInt((slash < 0 ? entry : entry.substring(0, slash)).trim());
+            int meta = slash < 0 ? -1 : Integer.parseInt(entry.substring(slash + 1).trim());
+            if (id <= 0 || id >= IDS || meta > 15) throw new NumberFormatException();
+            return entry(id, meta);
+        } catch (NumberFormatException e) {
+            OvmLog.warn("blockGroups: ignoring entry '{}'", entry);
+            return -1;
+        }
+    }
+
+    private static int entry(int id, int meta) {
+        // Key 0xFFFF (4095/15) is VoxelWindow's unread marker, so ID 4095 is never split
+        if (id == IDS - 1) meta = -1;
+        return id << 5 | (meta + 1);
+    }
+
+    /** The blocks registered under an OreDictionary name, as entries (see parseEntry). */
+    private static int[] ores(String name) {
+        List<?> ores = oreList(name);
+        if (ores == null) return new int[0];
+        int[] out = new int[ores.size()];
+        int count = 0;
+        for (Object stack : ores) {
+            if (stack == null) continue;
+            Field[] f = McAccessor.resolveStackFields(stack);
+            if (f[0] == null || f[2] == null) continue;
+            try {
+                int id = f[0].getInt(stack), damage = f[2].getInt(stack);
+                // Item IDs start at 256 but mod blocks may sit above it; only block IDs fit the table
+                if (id <= 0 || id >= IDS || McAccessor.getBlock(id) == null) continue;
+                out[count++] = entry(id, damage >= 0 && damage <= 15 ? damage : -1);
+            } catch (Exception ignored) {}
+        }
+        return java.util.Arrays.copyOf(out, count);
+    }
+
+    private static int find(int[] parent, int id) {
+        while (parent[id] != id) id = parent[id] = parent[parent[id]];
+        return id;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        a = find(parent, a);
+        b = find(parent, b);
+        if (a < b) parent[b] = a;
+        else if (b < a) parent[a] = b;
+    }
+
+    // -----------------------------------------------------------------------
+    // OreDictionary (Forge), resolved reflectively so a missing API only drops ore: entries
+    // -----------------------------------------------------------------------
+
+    private static Class<?> oreDictionary() {
+        try {
+            return Class.forName("net.minecraftforge.oredict.OreDictionary");
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static String[] oreNames() {
+        try {
+            Class<?> cls = oreDictionary();
+            if (cls == null) return new String[0];
+            Method m = cls.getMethod("getOreNames");
+            String[] names = (String[]) m.invoke(null);
+            return names != null ? names : new String[0];
+        } catch (Exception e) {
+            OvmLog.warn("OreDictionary names unavailable: {}", e);
+            return new String[0];
+        }
+    }
+
+    private static List<?> oreList(String name) {
+        try {
+            Class<?> cls = oreDictionary();
+            if (cls == null) return null;
+            Method m = cls.getMethod("getOres", String.class);
+            return (List<?>) m.invoke(null, name);
+        } catch (Exception e) {
+            OvmLog.warn("OreDictionary lookup failed: {}", e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.ovm;
+
+/**
+ * Read-only block access for the vein search, so the same flood fill runs on the main
+ * thread against live chunks (ChunkReader) or on a worker against copied sections (ChunkSnapshot).
+ */
+interface BlockSource {
+
+    /** Block ID at world coordinates; 0 (air) outside y 0..255. */
+    int getBlockId(int x, int y, int z);
+
+    /** Block metadata at world coordinates; only read for IDs split by metadata (BlockGroups.needsMeta). */
+    int getBlockMetadata(int x, int y, int z);
+}
@@ -0,0 +1,150 @@
+package com.ovm;
+
+/**
+ * Removes a batch of blocks with World.updateAllLightTypes deferred to the end of the batch,
+ * and run only where it can change anything.
+ *
+ * World.setBlock relights every removed position immediately; carving out a vein underground
+ * repeats overlapping sky/block light passes once per block. Here remove() writes air at
+ * chunk level (removal hooks, heightmap and the chunk's sky light columns still run), and
+ * flush() relights, over the final block state:
+ *   - boundary positions: removed blocks with a face neighbour outside the batch. Light can
+ *     only enter the removed region through them, and each relight that raises a position's
+ *     light spreads into its neighbours (up to 17 blocks, more than light travels), so the
+ *     interior is lit by those passes;
+ *   - removed blocks that emitted light (lit redstone ore), whose darkening starts at them.
+ * Interior blocks with all six neighbours removed in the same batch are not relit on their own.
+ * Light settles to the same values as with one relight per block.
+ *
+ * Client sync is one markBlockForUpdate per removed block, grouped by chunk. The server's
+ * PlayerInstance collects a chunk's marks over the tick and sends them as one multi-block-change
+ * packet, or as a resend of the marked sections once 64 distinct blocks are marked; past that
+ * point a chunk gets only one more mark per section it has not marked yet (see markChanged).
+ * Neighbours are not marked: their IDs did not change, and clients relight and re-render
+ * around each received block change themselves.
+ *
+ * Neighbour updates are deduplicated: flush() collects the face neighbours of the batch that
+ * were not removed themselves and calls onNeighborBlockChange once per neighbour, instead of
+ * six notifications per removed block (most of which hit the next vein block, or the same
+ * sand/gravel/water block again and again). Neighbours in unloaded chunks are skipped rather
+ * than loaded.
+ *
+ * If the chunk write or relight cannot be resolved, remove() falls back to McAccessor.setBlock;
+ * without Block.onNeighborBlockChange, flush() notifies per removed block as setBlock would.
+ */
+final class BulkRemoval {
+
+    private final Object world;
+    private long[] removed = new long[64];
+    private boolean[] emits = new boolean[64];
+    private int count;
+
+    private int chunkX = Integer.MIN_VALUE, chunkZ = Integer.MIN_VALUE;
+    private Object chunk;
+
+    BulkRemoval(Object world) {
+        this.world = world;
+    }
+
+    /** Set the block (id) to air. Light and notifications are held until flush(). */
+    void remove(int x, int y, int z, int id) {
+        if (y < 0 || y > 255) return;
+        int cx = x >> 4, cz = z >> 4;
+        if (cx != chunkX || cz != chunkZ) {
+            chunk = McAccessor.getChunk(world, cx, cz);
+            chunkX = cx;
+            chunkZ = cz;
+        }
+        if (chunk == null || !McAccessor.canWriteWithoutLight(world, chunk)) {
+            McAccessor.setBlock(world, x, y, z, 0);
+            return;
+        }
+        if (!McAccessor.setBlockWithoutLight(chunk, x, y, z, 0)) return;
+        if (count == removed.length) {
+            removed = java.util.Arrays.copyOf(removed, count * 2);
+            emits = java.util.Arrays.copyOf(emits, count * 2);
+        }
+        emits[count] = McAccessor.getLightValue(id) > 0;
+        removed[count++] = PackedPos.pack(x, y, z);
+    }
+
+    /** Relight the batch's boundary, mark it for client sync by chunk, then notify unique neighbours once. */
+    void flush() {
+        LongIntMap members = new LongIntMap(count * 2);
+        for (int i = 0; i < count; i++) members.put(removed[i], 1);
+        // Our own removals reach VeinCache through onMined; keep its listener out of these marks
+        VeinCache.mute(true);
+        try {
+            for (int i = 0; i < count; i++) {
+                long p = removed[i];
+                int x = PackedPos.x(p), y = PackedPos.y(p), z = PackedPos.z(p);
+                if (emits[i] || isBoundary(members, x, y, z)) McAccessor.updateLight(world, x, y, z);
+            }
+            markChanged();
+        } finally {
+            VeinCache.mute(false);
+        }
+        if (count > 0 && McAccessor.canNotifyNeighbor(world)) {
+            notifyNeighbors(members);
+        } else {
+            for (int i = 0; i < count; i++) {
+                long p = removed[i];
+                McAccessor.notifyBlockChange(world, PackedPos.x(p), PackedPos.y(p), PackedPos.z(p), 0);
+            }
+        }
+        count = 0;
+    }
+
+    // Distinct marks after which PlayerInstance resends the marked sections of a chunk
+    private static final int MARKS_PER_CHUNK = 64;
+
+    /**
+     * Mark removed blocks for client sync. Per chunk, the first MARKS_PER_CHUNK blocks are marked
+     * individually; after that only the first block in each further section, which is all
+     * PlayerInstance needs to include that section in the resend.
+     * Per-chunk state in a LongIntMap: low byte = marks sent, bits 8..23 = sections marked.
+     */
+    private void markChanged() {
+        LongIntMap chunks = new LongIntMap(16);
+        for (int i = 0; i < count; i++) {
+            long p = removed[i];
+            int x = PackedPos.x(p), y = PackedPos.y(p), z = PackedPos.z(p);
+            long key = (long) (x >> 4) << 32 | ((z >> 4) & 0xFFFFFFFFL);
+            int state = chunks.get(key, 0);
+            int marks = state & 0xFF, sections = state >>> 8, bit = 1 << (y >> 4);
+            if (marks >= MARKS_PER_CHUNK && (sections & bit) != 0) continue;
+            McAccessor.markBlock(world, x, y, z);
+            chunks.put(key, Math.min(marks + 1, MARKS_PER_CHUNK) | (sections | bit) << 8);
+        }
+    }
+
+    // Face order as World.notifyBlocksOfNeighborChange: -x, +x, -y, +y, -z, +z
+    private static final int[][] FACES = {
+        { -1, 0, 0 }, { 1, 0, 0 }, { 0, -1, 0 }, { 0, 1, 0 }, { 0, 0, -1 }, { 0, 0, 1 }
+    };
+
+    private static boolean isBoundary(LongIntMap members, int x, int y, int z) {
+        for (int[] f : FACES)
+            if (members.get(PackedPos.pack(x + f[0], y + f[1], z + f[2]), 0) == 0) return true;
+        return false;
+    }
+
+    /** Notify face neighbours outside the batch, once each. seen starts as the batch itself. */
+    private void notifyNeighbors(LongIntMap seen) {
+        for (int i = 0; i < count; i++) {
+            long p = removed[i];
+            int x = PackedPos.x(p), y = PackedPos.y(p), z = PackedPos.z(p);
+            for (int[] f : FACES) {
+                int nx = x + f[0], ny = y + f[1], nz = z + f[2];
+                if (ny < 0 || ny > 255) continue;
+                long n = PackedPos.pack(nx, ny, nz);
+                if (seen.get(n, 0) != 0) continue;
+                seen.put(n, 1);
+                // A neighbour across a chunk border may be unloaded; notifying it would load it
+                boolean otherChunk = nx >> 4 != x >> 4 || nz >> 4 != z >> 4;
+                if (otherChunk && !McAccessor.chunkExists(world, nx >> 4, nz >> 4)) continue;
+                McAccessor.notifyNeighbor(world, nx, ny, nz, 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.ovm;
+
+/**
+ * Per-operation block reader over raw chunk section arrays.
+ *
+ * World.getBlockId resolves the chunk through the chunk provider on every call. This reader
+ * fetches each Chunk / ExtendedBlockStorage once and keeps the last chunk and last section,
+ * so neighbour probes inside one 16x16x16 section are plain array reads.
+ * ID = lsb[y << 8 | z << 4 | x] | msbNibble << 8 (same layout as ExtendedBlockStorage.getExtBlockID);
+ * metadata is the same index into the metadata nibbles, fetched only once asked for.
+ *
+ * Falls back to McAccessor.getBlockId / getBlockMeta if sections cannot be resolved, or if the
+ * first comparison against World.getBlockId (and getBlockMetadata, once block groups depend
+ * on metadata) disagrees (wrong obfuscated member picked).
+ *
+ * Chunks that are not loaded read as air (counted in OvmStats) and are never fetched: a
+ * search must not make the server load or generate chunks at its frontier.
+ */
+public class ChunkReader implements BlockSource {
+
+    // 0 = not yet validated, 1 = validated, -1 = disabled (use World.getBlockId)
+    private static volatile int fastPathState = 0;
+
+    private final Object world;
+    private final boolean fast;
+
+    private int chunkX = Integer.MIN_VALUE, chunkZ = Integer.MIN_VALUE;
+    private boolean loaded;
+    private Object[] sections;     // null if unresolved: read through World.getBlockId
+
+    private int sectionY = -1;
+    private Object section;
+    private byte[] lsb;
+    private byte[] msb;
+    private byte[] meta;
+    private boolean metaRead;
+
+    public ChunkReader(Object world, int ox, int oy, int oz) {
+        this.world = world;
+        if (fastPathState == 0) validate(ox, oy, oz);
+        this.fast = fastPathState >= 0;
+    }
+
+    /**
+     * Drop the cached chunk and section. A reader kept across ticks (a streamed search) calls
+     * this first, since chunks may have unloaded and sections been created in between.
+     */
+    void forget() {
+        chunkX = Integer.MIN_VALUE;
+        chunkZ = Integer.MIN_VALUE;
+        loaded = false;
+        sections = null;
+        sectionY = -1;
+        section = null;
+        lsb = null;
+        msb = null;
+        meta = null;
+        metaRead = false;
+    }
+
+    /** True once section reads have been checked against World.getBlockId (see validate). */
+    static boolean isFastPathValidated() {
+        return fastPathState > 0;
+    }
+
+    @Override
+    public int getBlockId(int x, int y, int z) {
+        if (y < 0 || y > 255) return 0;
+        int sy = y >> 4;
+        if (!moveTo(x >> 4, z >> 4)) {
+            OvmStats.skippedUnloaded();
+            return 0;
+        }
+        if (sections == null) return McAccessor.getBlockId(world, x, y, z);
+        if (sy != sectionY) loadSection(sy);
+        if (lsb == null) return 0;
+        int idx = (y & 15) << 8 | (z & 15) << 4 | (x & 15);
+        int id = lsb[idx] & 255;
+        if (msb != null) id |= ((idx & 1) == 0 ? msb[idx >> 1] & 15 : (msb[idx >> 1] >> 4) & 15) << 8;
+        return id;
+    }
+
+    @Override
+    public int getBlockMetadata(int x, int y, int z) {
+        if (y < 0 || y > 255 || !moveTo(x >> 4, z >> 4)) return 0;
+        if (sections == null) return McAccessor.getBlockMeta(world, x, y, z);
+        if (y >> 4 != sectionY) loadSection(y >> 4);
+        if (lsb == null) return 0;
+        if (!metaRead) {
+            meta = McAccessor.getSectionMeta(section);
+            metaRead = true;
+        }
+        if (meta == null) return McAccessor.getBlockMeta(world, x, y, z);
+        int idx = (y & 15) << 8 | (z & 15) << 4 | (x & 15);
+        return (idx & 1) == 0 ? meta[idx >> 1] & 15 : (meta[idx >> 1] >> 4) & 15;
+    }
+
+    /** Make chunk (cx, cz) current. Returns false if it is not loaded. */
+    private boolean moveTo(int cx, int cz) {
+        if (cx != chunkX || cz != chunkZ) {
+            chunkX = cx;
+            chunkZ = cz;
+            sectionY = -1;
+            loaded = McAccessor.chunkExists(world, cx, cz);
+            Object chunk = loaded && fast ? McAccessor.getChunk(world, cx, cz) : null;
+            sections = chunk != null ? McAccessor.getSections(chunk) : null;
+        }
+        return loaded;
+    }
+
+    private void loadSection(int sy) {
+        section = sy < sections.length ? sections[sy] : null;
+        lsb = section != null ? McAccessor.getSectionLsb(section) : null;
+        msb = lsb != null ? McAccessor.getSectionMsb(section) : null;
+        meta = null;
+        metaRead = false;
+        sectionY = sy;
+    }
+
+    /**
+     * Compare section reads with World.getBlockId over the 3x3x3 cube around the origin.
+     * Any mismatch disables the fast path for the session; agreement on at least one
+     * non-air block marks it validated. All-air samples leave it undecided (try again next time).
+     */
+    private void validate(int ox, int oy, int oz) {
+        fastPathState = 1;
+        ChunkReader probe = new ChunkReader(world);
+        boolean sawBlock = false;
+        for (int dx = -1; dx <= 1; dx++)
+            for (int dy = -1; dy <= 1; dy++)
+                for (int dz = -1; dz <= 1; dz++) {
+                    if (!McAccessor.chunkExists(world, (ox + dx) >> 4, (oz + dz) >> 4)) continue;
+                    int expected = McAccessor.getBlockId(world, ox + dx, oy + dy, oz + dz);
+                    boolean metaDiffers = expected != 0 && BlockGroups.hasMetaGroups()
+                        && probe.getBlockMetadata(ox + dx, oy + dy, oz + dz)
+                           != McAccessor.getBlockMeta(world, ox + dx, oy + dy, oz + dz);
+                    if (probe.getBlockId(ox + dx, oy + dy, oz + dz) != expected || metaDiffers) {
+                        fastPathState = -1;
+                        OvmLog.warn("chunk section reads disagree with World.getBlockId; using World.getBlockId");
+                        return;
+                    }
+                    if (expected != 0) sawBlock = true;
+                }
+        if (!sawBlock) fastPathState = 0;
+    }
+
+    // Unvalidated fast reader used by validate()
+    private ChunkReader(Object world) {
+        this.world = world;
+        this.fast = true;
+    }
+}
@@ -0,0 +1,188 @@
+package com.ovm;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Chunk sections copied for a vein search on a worker thread, section by section as the
+ * search reaches them.
+ *
+ * The worker never touches live chunk data. A read from a section that has not been copied
+ * yet records the section and throws MISSING; VeinSearch checks the sections around a block
+ * (require) before it changes any state, so the search is paused, not damaged. The main
+ * thread then copies the recorded sections (copyMissing) and the worker resumes the same
+ * search. Block arrays are copied (metadata too when block groups depend on it,
+ * BlockGroups.hasMetaGroups); sections of chunks that are not loaded read as air and are
+ * counted in OvmStats.
+ *
+ * Not thread-safe: the main thread and the worker take turns (executor submit and the
+ * completion queue order the hand-offs).
+ */
+final class ChunkSnapshot implements BlockSource {
+
+    /** Thrown by reads of a section that is not copied yet; preallocated, no stack trace. */
+    static final class Missing extends RuntimeException {
+        private Missing() {
+            super("chunk section not copied");
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    static final Missing MISSING = new Missing();
+
+    private static final byte[][] EMPTY_SECTION = new byte[3][];
+    private static final byte[][] UNLOADED = new byte[3][];
+
+    // Section key -> copied [lsb, msb, meta] (EMPTY_SECTION for air, UNLOADED for unloaded chunks)
+    private final Map<Long, byte[][]> sections = new HashMap<Long, byte[][]>();
+
+    private long[] missing = new long[8];
+    private int missingCount;
+
+    // Last section read, and the last section all of require's box lay in
+    private long lastKey = Long.MIN_VALUE;
+    private long lastRequired = Long.MIN_VALUE;
+    private byte[] lsb, msb, meta;
+
+    // Chunk coordinates stay within 28 bits (±30M blocks / 16)
+    private static long sectionKey(int cx, int cz, int sy) {
+        return ((long) cx << 36) | ((long) (cz & 0xFFFFFFF) << 4) | sy;
+    }
+
+    private static int keyX(long key) { return (int) (key >> 36); }
+
+    private static int keyZ(long key) { return (int) (key >> 4) << 4 >> 4; }
+
+    private static int keyY(long key) { return (int) key & 15; }
+
+    /** Main thread: copy the sections within radius blocks of x, y, z before the first round. */
+    void seed(Object world, int x, int y, int z, int radius) {
+        for (int cx = (x - radius) >> 4; cx <= (x + radius) >> 4; cx++)
+            for (int cz = (z - radius) >> 4; cz <= (z + radius) >> 4; cz++)
+                for (int sy = Math.max(y - radius, 0) >> 4; sy <= Math.min(y + radius, 255) >> 4; sy++)
+                    copy(world, sectionKey(cx, cz, sy));
+    }
+
+    /** Main thread: copy every section the last round asked for. */
+    void copyMissing(Object world) {
+        for (int i = 0; i < missingCount; i++) copy(world, missing[i]);
+        clearMissing();
+    }
+
+    /** Sections the last round asked for: count, and chunk X / Z and section Y of each. */
+    int missingCount() {
+        return missingCount;
+    }
+
+    int missingX(int i) { return keyX(missing[i]); }
+
+    int missingZ(int i) { return keyZ(missing[i]); }
+
+    int missingY(int i) { return keyY(missing[i]); }
+
+    void clearMissing() {
+        missingCount = 0;
+        lastKey = Long.MIN_VALUE;
+        lastRequired = Long.MIN_VALUE;
+    }
+
+    private void copy(Object world, long key) {
+        if (sections.containsKey(key)) return;
+        Object chunk = McAccessor.getLoadedChunk(world, keyX(key), keyZ(key));
+        if (chunk == null) {
+            sections.put(key, UNLOADED);
+            return;
+        }
+        Object[] secs = McAccessor.getSections(chunk);
+        int sy = keyY(key);
+        Object section = secs != null && sy < secs.length ? secs[sy] : null;
+        byte[] liveLsb = section != null ? McAccessor.getSectionLsb(section) : null;
+        if (liveLsb == null) {
+            sections.put(key, EMPTY_SECTION);
+            return;
+        }
+        byte[] liveMsb = McAccessor.getSectionMsb(section);
+        byte[] liveMeta = BlockGroups.hasMetaGroups() ? McAccessor.getSectionMeta(section) : null;
+        put(key, liveLsb.clone(), liveMsb != null ? liveMsb.clone() : null, liveMeta != null ? liveMeta.clone() : null);
+    }
+
+    /** Install a copied section (lsb may be null for air). Also used by the checks. */
+    void put(int cx, int cz, int sy, byte[] lsb, byte[] msb, byte[] meta) {
+        put(sectionKey(cx, cz, sy), lsb, msb, meta);
+    }
+
+    private void put(long key, byte[] lsb, byte[] msb, byte[] meta) {
+        sections.put(key, lsb == null ? EMPTY_SECTION : new byte[][]{ lsb, msb, meta });
+    }
+
+    /**
+     * Worker: make sure every section overlapping the 3x3x3 box around x, y, z is copied, so
+     * expanding that block reads nothing missing. Records the absent ones and throws MISSING.
+     */
+    void require(int x, int y, int z) {
+        int y0 = Math.max(y - 1, 0), y1 = Math.min(y + 1, 255);
+        int cx0 = (x - 1) >> 4, cx1 = (x + 1) >> 4, cz0 = (z - 1) >> 4, cz1 = (z + 1) >> 4;
+        int sy0 = y0 >> 4, sy1 = y1 >> 4;
+        boolean single = cx0 == cx1 && cz0 == cz1 && sy0 == sy1;
+        if (single && sectionKey(cx0, cz0, sy0) == lastRequired) return;
+        boolean absent = false;
+        for (int cx = cx0; cx <= cx1; cx++)
+            for (int cz = cz0; cz <= cz1; cz++)
+                for (int sy = sy0; sy <= sy1; sy++) {
+                    long key = sectionKey(cx, cz, sy);
+                    if (sections.containsKey(key)) continue;
+                    request(key);
+                    absent = true;
+                }
+        if (absent) throw MISSING;
+        if (single) lastRequired = sectionKey(cx0, cz0, sy0);
+    }
+
+    @Override
+    public int getBlockId(int x, int y, int z) {
+        if (!select(x, y, z, true) || lsb == null) return 0;
+        int idx = (y & 15) << 8 | (z & 15) << 4 | (x & 15);
+        int id = lsb[idx] & 255;
+        if (msb != null) id |= ((idx & 1) == 0 ? msb[idx >> 1] & 15 : (msb[idx >> 1] >> 4) & 15) << 8;
+        return id;
+    }
+
+    /** Metadata from the copy; 0 where metadata was not copied (no block group depends on it). */
+    @Override
+    public int getBlockMetadata(int x, int y, int z) {
+        if (!select(x, y, z, false) || meta == null) return 0;
+        int idx = (y & 15) << 8 | (z & 15) << 4 | (x & 15);
+        return (idx & 1) == 0 ? meta[idx >> 1] & 15 : (meta[idx >> 1] >> 4) & 15;
+    }
+
+    /** Make the section holding x, y, z current. Returns false if it reads as air; throws MISSING if not copied. */
+    private boolean select(int x, int y, int z, boolean count) {
+        if (y < 0 || y > 255) return false;
+        long key = sectionKey(x >> 4, z >> 4, y >> 4);
+        if (key == lastKey) return true;
+        byte[][] arrays = sections.get(key);
+        if (arrays == null) {
+            request(key);
+            throw MISSING;
+        }
+        if (arrays == UNLOADED) {
+            if (count) OvmStats.skippedUnloaded();
+            return false;
+        }
+        lsb = arrays[0];
+        msb = arrays[1];
+        meta = arrays[2];
+        lastKey = key;
+        return true;
+    }
+
+    private void request(long key) {
+        for (int i = 0; i < missingCount; i++) if (missing[i] == key) return;
+        if (missingCount == missing.length) missing = java.util.Arrays.copyOf(missing, missingCount * 2);
+        missing[missingCount++] = key;
+    }
+}
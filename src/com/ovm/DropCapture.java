@@ -0,0 +1,141 @@
+package com.ovm;
+
+import net.minecraftforge.event.ForgeSubscribe;
+import net.minecraftforge.event.entity.EntityJoinWorldEvent;
+import net.minecraftforge.event.world.WorldEvent;
+
+/**
+ * Server-side interception of item drops, so vein drops never exist as EntityItems.
+ *
+ * Forge 1.4.7's Entity.captureDrops only covers entity deaths; block drops go through
+ * World.spawnEntityInWorld, which posts a cancelable EntityJoinWorldEvent. While a capture is
+ * open (begin/end around Block.harvestBlock), EntityItems joining that world are added to the
+ * job's Drops and the spawn is canceled.
+ *
+ * The origin block is broken by vanilla before the veinmine packet arrives, so its drops
+ * already exist. Forge 1.4.7 posts no block-break event, but vanilla's harvest removes the
+ * block (World.markBlockForUpdate, seen by an IWorldAccess listener on each server world) and
+ * then spawns its drops in the same call. An EntityItem that joins the world inside the cell
+ * of the block last marked this tick, with that block now air, is recorded as a drop of that
+ * break; absorbHarvest() folds the drops recorded for the origin into the job. Items thrown or
+ * dropped by anything else are never taken.
+ *
+ * Client worlds are ignored, so everything here runs on the server thread. Event fields are
+ * read reflectively: the events are Forge classes, but their entity/world fields have
+ * obfuscated Minecraft types.
+ */
+public class DropCapture {
+
+    private static final int RING_SIZE = 32;
+    private static final int RING_MAX_AGE_TICKS = 40;
+
+    // Open capture (main server thread only)
+    private static Object captureWorld;
+    private static Drops captureTarget;
+
+    // Block last marked this tick (cleared at tick end)
+    private static Object markedWorld;
+    private static int markedX, markedY, markedZ;
+
+    // EntityItems spawned by vanilla harvests: entity, broken block, tick
+    private static final Object[] harvested = new Object[RING_SIZE];
+    private static final long[] harvestedPos = new long[RING_SIZE];
+    private static final long[] harvestedTick = new long[RING_SIZE];
+    private static int harvestedNext;
+    private static long tick;
+
+    /** Start capturing item spawns in world into drops. */
+    static void begin(Object world, Drops drops) {
+        captureWorld = world;
+        captureTarget = drops;
+    }
+
+    static void end() {
+        captureWorld = null;
+        captureTarget = null;
+    }
+
+    /** End of a server tick: the last marked block's harvest is over. */
+    static void tick() {
+        markedWorld = null;
+        tick++;
+    }
+
+    @ForgeSubscribe
+    public void onWorldLoad(WorldEvent.Load event) {
+        final Object world = Reflect.getField(event, Object.class, "world");
+        if (world == null || Reflect.getField(world, boolean.class, "isRemote", "I")) return;
+        boolean ok = McAccessor.addBlockListener(world, "OvmDropCaptureListener", new McAccessor.BlockListener() {
+            @Override
+            public void onBlockMarked(int x, int y, int z) {
+                markedWorld = world;
+                markedX = x;
+                markedY = y;
+                markedZ = z;
+            }
+
+            @Override
+            public void onRangeMarked(int x1, int y1, int z1, int x2, int y2, int z2) {}
+        });
+        if (!ok) OvmLog.warn("world listener unavailable; origin drops are computed instead of captured");
+    }
+
+    @ForgeSubscribe
+    public void onEntityJoinWorld(EntityJoinWorldEvent event) {
+        try {
+            Object world = Reflect.getField(event, Object.class, "world");
+            if (world == null || Reflect.getField(world, boolean.class, "isRemote", "I")) return;
+            Object entity = Reflect.getField(event, Object.class, "entity");
+            if (entity == null || !McAccessor.isEntityItem(entity)) return;
+
+            if (captureTarget != null && world == captureWorld) {
+                Object stack = McAccessor.getEntityItemStack(entity);
+                if (stack != null) captureTarget.add(stack);
+                event.setCanceled(true);
+                return;
+            }
+
+            if (world == markedWorld && inMarkedCell(entity)
+                    && McAccessor.getBlockId(world, markedX, markedY, markedZ) == 0) {
+                harvested[harvestedNext] = entity;
+                harvestedPos[harvestedNext] = PackedPos.pack(markedX, markedY, markedZ);
+                harvestedTick[harvestedNext] = tick;
+                harvestedNext = (harvestedNext + 1) % RING_SIZE;
+            }
+        } catch (Exception e) {
+            OvmLog.error("DropCapture error: {}", e);
+        }
+    }
+
+    /** True if the entity is inside the marked block's cell (where dropBlockAsItem spawns). */
+    private static boolean inMarkedCell(Object entity) {
+        double x = McAccessor.getPosX(entity) - markedX;
+        double y = McAccessor.getPosY(entity) - markedY;
+        double z = McAccessor.getPosZ(entity) - markedZ;
+        return x >= 0 && x <= 1 && y >= 0 && y <= 1 && z >= 0 && z <= 1;
+    }
+
+    /**
+     * Fold the still-alive EntityItems recorded for the vanilla harvest of the block at
+     * x, y, z into drops and kill them. Returns the number of entities absorbed.
+     */
+    static int absorbHarvest(Object world, int x, int y, int z, Drops drops) {
+        int absorbed = 0;
+        long pos = PackedPos.pack(x, y, z);
+        for (int i = 0; i < RING_SIZE; i++) {
+            Object entity = harvested[i];
+            if (entity == null) continue;
+            if (tick - harvestedTick[i] > RING_MAX_AGE_TICKS) { harvested[i] = null; continue; }
+            if (harvestedPos[i] != pos || Reflect.getField(entity, Object.class, "worldObj", "p") != world) continue;
+            harvested[i] = null;
+            if (Reflect.getField(entity, boolean.class, "isDead", "L")) continue;
+
+            Object stack = McAccessor.getEntityItemStack(entity);
+            if (stack == null) continue;
+            drops.add(stack);
+            Reflect.invokeNoArg(entity, void.class, "setDead", "x");
+            absorbed++;
+        }
+        return absorbed;
+    }
+}
@@ -0,0 +1,131 @@
+package com.ovm;
+
+import java.util.List;
+
+/**
+ * Delivers a job's merged drops: inventory first, then as few ground entities as possible.
+ *
+ * Reads InventoryPlayer.mainInventory once and plans every drop type against it in one pass,
+ * in the order addItemStackToInventory would use (partial stacks of the same item in slot
+ * order, then empty slots), writing stack sizes and new stacks straight into the array.
+ * What does not fit tops up plain EntityItems of the same item near the player (each gets a new,
+ * larger stack through setEntityItemStack, so clients see the new count), and the rest is
+ * spawned in full stacks. Cost scales with distinct drop types, not item count. Only plain
+ * types top up existing stacks; tagged types (Drops) go to empty slots and new entities.
+ *
+ * Falls back to addItemStackToInventory per 64-item batch if the inventory array or
+ * ItemStack.getMaxStackSize cannot be resolved.
+ */
+final class DropDelivery {
+
+    static void deliver(Object world, Object player, Drops drops) {
+        if (drops.isEmpty()) return;
+
+        List<Drops.Type> types = drops.types();
+        int n = types.size();
+        int[] maxStack = new int[n];
+        for (int t = 0; t < n; t++) {
+            Object proto = types.get(t).make(1);
+            maxStack[t] = proto != null ? McAccessor.getMaxStackSize(proto) : 0;
+            if (maxStack[t] <= 0) { deliverPerBatch(world, player, types); return; }
+        }
+
+        if (OvmConfig.dropsToInventory) {
+            Object[] main = McAccessor.getMainInventory(player);
+            if (main == null) { deliverPerBatch(world, player, types); return; }
+            fillInventory(main, drops, maxStack);
+        }
+        spawnOverflow(world, player, drops, maxStack);
+    }
+
+    /** Plan and apply inventory insertion for all types; each type's count is left holding what did not fit. */
+    private static void fillInventory(Object[] main, Drops drops, int[] maxStack) {
+        List<Drops.Type> types = drops.types();
+
+        // Pass 1: top up partial plain stacks; remember empty slots in slot order
+        int[] empty = new int[main.length];
+        int emptyCount = 0;
+        for (int i = 0; i < main.length; i++) {
+            Object stack = main[i];
+            if (stack == null) { empty[emptyCount++] = i; continue; }
+            int idx = drops.plainIndex(McAccessor.getStackItemId(stack), McAccessor.getStackDamage(stack));
+            if (idx < 0 || types.get(idx).count <= 0 || !McAccessor.isPlainStack(stack)) continue;
+            Drops.Type type = types.get(idx);
+            int size = McAccessor.getStackSize(stack);
+            int add = Math.min(maxStack[idx] - size, type.count);
+            if (add <= 0) continue;
+            McAccessor.setStackSize(stack, size + add);
+            type.count -= add;
+        }
+
+        // Pass 2: new stacks in empty slots, drop types in merge order
+        int e = 0;
+        for (int t = 0; t < types.size() && e < emptyCount; t++) {
+            Drops.Type type = types.get(t);
+            while (type.count > 0 && e < emptyCount) {
+                int batch = Math.min(type.count, maxStack[t]);
+                Object stack = type.make(batch);
+                if (stack == null) break;
+                main[empty[e++]] = stack;
+                type.count -= batch;
+            }
+        }
+    }
+
+    /** Remaining items: top up same-item EntityItems near the player, then spawn full stacks. */
+    private static void spawnOverflow(Object world, Object player, Drops drops, int[] maxStack) {
+        List<Drops.Type> types = drops.types();
+        boolean any = false;
+        for (Drops.Type type : types) if (type.count > 0) { any = true; break; }
+        if (!any) return;
+
+        double px = McAccessor.getPosX(player), py = McAccessor.getPosY(player), pz = McAccessor.getPosZ(player);
+        List<?> nearby = McAccessor.getEntityItemsIn(world, px - 2, py - 2, pz - 2, px + 2, py + 2, pz + 2);
+        for (Object entity : nearby) {
+            if (Reflect.getField(entity, boolean.class, "isDead", "L")) continue;
+            Object stack = McAccessor.getEntityItemStack(entity);
+            if (stack == null || !McAccessor.isPlainStack(stack)) continue;
+            int id = McAccessor.getStackItemId(stack), damage = McAccessor.getStackDamage(stack);
+            int t = drops.plainIndex(id, damage);
+            if (t < 0 || types.get(t).count <= 0) continue;
+            Drops.Type type = types.get(t);
+            int size = McAccessor.getStackSize(stack);
+            int add = Math.min(maxStack[t] - size, type.count);
+            // A new stack, so the DataWatcher sends the new count to clients
+            Object topped = add > 0 ? McAccessor.makeItemStack(id, damage, size + add) : null;
+            if (topped != null && McAccessor.setEntityItemStack(entity, topped)) type.count -= add;
+        }
+
+        for (int t = 0; t < types.size(); t++) {
+            Drops.Type type = types.get(t);
+            while (type.count > 0) {
+                int batch = Math.min(type.count, maxStack[t]);
+                type.count -= batch;
+                Object stack = type.make(batch);
+                if (stack != null) McAccessor.spawnItem(world, player, stack);
+            }
+        }
+    }
+
+    /** Previous behaviour: addItemStackToInventory per 64-item batch, leftovers spawned at the player. */
+    private static void deliverPerBatch(Object world, Object player, List<Drops.Type> types) {
+        for (Drops.Type type : types) {
+            int remaining = type.count;
+            while (remaining > 0) {
+                int batch = Math.min(remaining, 64);
+                remaining -= batch;
+                Object stack = type.make(batch);
+                if (stack == null) continue;
+                if (OvmConfig.dropsToInventory) {
+                    int leftover = McAccessor.addToInventory(player, stack);
+                    if (leftover > 0) {
+                        Object overflow = type.make(leftover);
+                        if (overflow != null) McAccessor.spawnItem(world, player, overflow);
+                    }
+                } else {
+                    McAccessor.spawnItem(world, player, stack);
+                }
+            }
+        }
+    }
+}
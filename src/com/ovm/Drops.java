@@ -0,0 +1,96 @@
+package com.ovm;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A job's drops, merged by item type, in the order the types first dropped.
+ *
+ * Plain drops (no NBT tag) merge by item ID and damage and are rebuilt with makeItemStack on
+ * delivery. A captured stack carrying a tag (modded drops) is kept itself as its type's
+ * prototype; later stacks merge into it only if their tag is equal, and it is delivered as
+ * copies of the prototype, so the tag reaches the player intact.
+ *
+ * Main server thread only.
+ */
+final class Drops {
+
+    /** count items of one type; delivery counts it down to what is left to place. */
+    static final class Type {
+        final int id, damage;
+        final Object proto;     // captured tagged stack, or null for a plain type
+        int count;
+
+        Type(int id, int damage, Object proto) {
+            this.id = id;
+            this.damage = damage;
+            this.proto = proto;
+        }
+
+        boolean isPlain() {
+            return proto == null;
+        }
+
+        /** A new stack of size items of this type, or null if it cannot be built. */
+        Object make(int size) {
+            if (proto == null) return McAccessor.makeItemStack(id, damage, size);
+            Object stack = McAccessor.copyStack(proto);
+            if (stack != null) McAccessor.setStackSize(stack, size);
+            return stack;
+        }
+    }
+
+    private final List<Type> types = new ArrayList<Type>();
+    // id * 65536 + damage → index of the plain type in types
+    private final Map<Integer, Integer> plain = new HashMap<Integer, Integer>();
+
+    /** Add count plain items of (id, damage). */
+    void add(int id, int damage, int count) {
+        if (count <= 0) return;
+        int key = id * 65536 + damage;
+        Integer idx = plain.get(key);
+        if (idx == null) {
+            idx = types.size();
+            types.add(new Type(id, damage, null));
+            plain.put(key, idx);
+        }
+        types.get(idx).count += count;
+    }
+
+    /** Add a captured stack. A tagged stack no earlier type matches becomes a new type's prototype. */
+    void add(Object stack) {
+        int count = McAccessor.getStackSize(stack);
+        if (count <= 0) return;
+        int id = McAccessor.getStackItemId(stack), damage = McAccessor.getStackDamage(stack);
+        Object tag = McAccessor.getStackTag(stack);
+        if (tag == null) {
+            add(id, damage, count);
+            return;
+        }
+        for (Type t : types) {
+            if (t.proto != null && t.id == id && t.damage == damage && tag.equals(McAccessor.getStackTag(t.proto))) {
+                t.count += count;
+                return;
+            }
+        }
+        Type t = new Type(id, damage, stack);
+        t.count = count;
+        types.add(t);
+    }
+
+    /** Index in types() of the plain type of (id, damage), or -1. */
+    int plainIndex(int id, int damage) {
+        Integer idx = plain.get(id * 65536 + damage);
+        return idx != null ? idx : -1;
+    }
+
+    boolean isEmpty() {
+        return types.isEmpty();
+    }
+
+    List<Type> types() {
+        return types;
+    }
+}
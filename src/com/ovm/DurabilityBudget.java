@@ -0,0 +1,111 @@
+package com.ovm;
+
+import java.util.Random;
+
+/**
+ * How many vein blocks an operation can mine before the held tool breaks or the player runs
+ * out of food, known before the search so the search stops there (the job's maxCount).
+ *
+ * Tool: a hit lands with probability 1 / (Unbreaking level + 1) per block, as
+ * ItemStack.damageItem rolls it; the tool breaks on the hit that takes its damage past
+ * getMaxDamage. The blocks between landed hits are sampled up front from a per-operation seed
+ * (geometric gaps), so the budget is the block that lands the breaking hit, and replaying the
+ * seed at the end gives the hits landed within the blocks actually mined. That wear is then
+ * applied to the stack once, if the player still holds it. Creative players and undamageable
+ * items add no cap.
+ *
+ * Food: finish() deducts one food point per hungerPerBlocks mined (origin included), so at
+ * most foodLevel * hungerPerBlocks blocks are mined in all.
+ */
+final class DurabilityBudget {
+
+    static final int UNLIMITED = Integer.MAX_VALUE;
+    private static final int UNBREAKING = 34;
+
+    /** Vein blocks (beyond the origin) the operation may mine. */
+    final int blocks;
+
+    private final Object stack;     // the held tool, or null when it adds no cap
+    private final int durability;   // landed hits until it breaks, the last one breaking it
+    private final int unbreaking;
+    private final long seed;
+
+    private DurabilityBudget(int blocks, Object stack, int durability, int unbreaking, long seed) {
+        this.blocks = blocks;
+        this.stack = stack;
+        this.durability = durability;
+        this.unbreaking = unbreaking;
+        this.seed = seed;
+    }
+
+    static DurabilityBudget of(Object player, int foodLevel, Random rand) {
+        long food = OvmConfig.hungerPerBlocks > 0 ? (long) foodLevel * OvmConfig.hungerPerBlocks - 1 : UNLIMITED;
+        Object stack = McAccessor.getHeldItem(player);
+        if (stack != null && (!VeinMiner.isItemStackDamageable(stack) || McAccessor.isCreative(player))) stack = null;
+        int max = stack != null ? McAccessor.getMaxDamage(stack) : 0;
+        if (max <= 0) return new DurabilityBudget((int) Math.min(food, UNLIMITED), null, 0, 0, 0);
+
+        int durability = Math.max(max - McAccessor.getStackDamage(stack) + 1, 1);
+        int unbreaking = McAccessor.getEnchantmentLevel(stack, UNBREAKING);
+        DurabilityBudget tool = new DurabilityBudget(0, stack, durability, unbreaking, rand.nextLong());
+        long toolBlocks = tool.blockOfHit(durability);
+        int blocks = (int) Math.min(Math.min(food, toolBlocks), UNLIMITED);
+        return new DurabilityBudget(blocks, stack, durability, unbreaking, tool.seed);
+    }
+
+    /** Apply the wear of mined vein blocks to the tool, in one update. */
+    void apply(Object player, int mined) {
+        int hits = stack != null ? hitsWithin(mined) : 0;
+        if (hits <= 0) return;
+        // The wear was sampled for this stack: none if the player switched items since the request
+        if (McAccessor.getHeldItem(player) != stack) {
+            OvmLog.debug("veinmine: held item changed, {} hits of tool wear dropped", hits);
+            return;
+        }
+        if (unbreaking == 0) {
+            // No Unbreaking roll in damageItem: one vanilla call adds the wear and breaks the tool
+            VeinMiner.damageItem(stack, hits, player);
+            return;
+        }
+        // damageItem would roll Unbreaking again; the hits are already sampled, so add them directly
+        int max = McAccessor.getMaxDamage(stack);
+        int damage = McAccessor.getStackDamage(stack) + hits;
+        if (damage <= max) {
+            McAccessor.setStackDamage(stack, damage);
+            return;
+        }
+        // Broken: leave it one use from breaking and let damageItem break it, with its effects. If
+        // Unbreaking spares this hit too, the tool stays at the edge and its next vanilla use breaks it.
+        McAccessor.setStackDamage(stack, max);
+        VeinMiner.damageItem(stack, 1, player);
+    }
+
+    /** The block (1-based) that lands hit n. */
+    private long blockOfHit(int n) {
+        if (unbreaking == 0) return n;
+        Random r = new Random(seed);
+        long block = 0;
+        for (int i = 0; i < n; i++) block += gap(r);
+        return block;
+    }
+
+    /** Hits landed within the first mined blocks (at most durability). */
+    private int hitsWithin(int mined) {
+        if (unbreaking == 0) return Math.min(mined, durability);
+        Random r = new Random(seed);
+        long block = 0;
+        int hits = 0;
+        while (hits < durability) {
+            block += gap(r);
+            if (block > mined) break;
+            hits++;
+        }
+        return hits;
+    }
+
+    /** Blocks up to and including the next landed hit: geometric with p = 1 / (unbreaking + 1). */
+    private long gap(Random r) {
+        double miss = unbreaking / (unbreaking + 1.0);
+        return 1 + (long) Math.floor(Math.log(1.0 - r.nextDouble()) / Math.log(miss));
+    }
+}
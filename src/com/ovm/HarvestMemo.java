@@ -0,0 +1,96 @@
+package com.ovm;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Per-player memo of which blocks the held item can harvest, by (block ID, metadata).
+ *
+ * Mining asks Block.canHarvestBlock(EntityPlayer, meta), Forge's hook into
+ * ForgeHooks.canHarvestBlock: the held item's tool class and level against
+ * MinecraftForge.getBlockHarvestLevel, else EntityPlayer.canHarvestBlock. The answer depends
+ * on the block, its metadata and the held item, so it is asked once per block type and kept
+ * while the player holds an item of the same ID, across operations. Switching items clears it.
+ * Tool damage does not change the item ID, so wear keeps the memo.
+ *
+ * If the Forge hook cannot be resolved, VeinMiner.invokeCanHarvest (no metadata) is memoized
+ * instead.
+ */
+final class HarvestMemo {
+
+    private static final byte UNKNOWN = 0, YES = 1, NO = 2;
+
+    // Server and client threads both read players' memos
+    private static final Map<Object, HarvestMemo> memos =
+        Collections.synchronizedMap(new WeakHashMap<Object, HarvestMemo>());
+
+    private static volatile Invokers.BoolObjInt blockCanHarvest;
+    private static volatile boolean blockCanHarvestResolved;
+
+    private final byte[] known = new byte[BlockGroups.IDS << 4];
+    private int heldId = -1;
+
+    private HarvestMemo() {}
+
+    /** The player's memo, cleared if the held item changed since it was last used. */
+    static HarvestMemo of(Object player) {
+        HarvestMemo m = memos.get(player);
+        if (m == null) memos.put(player, m = new HarvestMemo());
+        int held = heldItemId(player);
+        if (held != m.heldId) {
+            Arrays.fill(m.known, UNKNOWN);
+            m.heldId = held;
+        }
+        return m;
+    }
+
+    boolean canHarvest(Object player, Object block, int id, int meta) {
+        int key = id << 4 | (meta & 15);
+        byte v = known[key];
+        if (v == UNKNOWN) known[key] = v = ask(player, block, meta) ? YES : NO;
+        return v == YES;
+    }
+
+    private static boolean ask(Object player, Object block, int meta) {
+        Invokers.BoolObjInt hook = blockCanHarvest(block);
+        if (hook == null) return VeinMiner.invokeCanHarvest(player, block);
+        try {
+            return hook.call(block, player, meta);
+        } catch (Exception e) {
+            return true;
+        }
+    }
+
+    /** Block.canHarvestBlock(EntityPlayer, meta): added by Forge, so never obfuscated. */
+    private static Invokers.BoolObjInt blockCanHarvest(Object block) {
+        if (!blockCanHarvestResolved) {
+            for (Method m : block.getClass().getMethods()) {
+                Class<?>[] p = m.getParameterTypes();
+                if (m.getName().equals("canHarvestBlock") && m.getReturnType() == boolean.class
+                        && p.length == 2 && !p[0].isPrimitive() && p[1] == int.class) {
+                    blockCanHarvest = Invokers.bind(Invokers.BoolObjInt.class, m);
+                    break;
+                }
+            }
+            if (blockCanHarvest == null)
+                OvmLog.warn("Block.canHarvestBlock(player, meta) not found, checking by block only");
+            blockCanHarvestResolved = true;
+        }
+        return blockCanHarvest;
+    }
+
+    private static int heldItemId(Object player) {
+        Object stack = McAccessor.getHeldItem(player);
+        if (stack == null) return 0;
+        Field f = McAccessor.resolveStackFields(stack)[0];
+        try {
+            return f != null ? f.getInt(stack) : 0;
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package com.ovm;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Direct-call invokers for resolved Minecraft methods.
+ *
+ * Members are still resolved once by name or signature (McAccessor, VeinMiner), then bound
+ * to one of the small typed interfaces below. Binding generates a class with a real
+ * invokevirtual call site using the ASM that FML ships, so hot paths do no boxing and no
+ * Method.invoke. The first parameter of every interface method is the receiver.
+ *
+ * If generation is impossible (non-public member, interface not visible from the target's
+ * class loader, ASM missing) the interface is backed by a reflective Proxy instead.
+ */
+public class Invokers {
+
+    /** (x, y, z) → int. World.getBlockId, World.getBlockMetadata. */
+    public interface IntXYZ { int call(Object target, int x, int y, int z); }
+
+    /** (a, b) → Object. World.getChunkFromChunkCoords. */
+    public interface ObjII { Object call(Object target, int a, int b); }
+
+    /** (a, b) → boolean. IChunkProvider.chunkExists. */
+    public interface BoolII { boolean call(Object target, int a, int b); }
+
+    /** (x, y, z, arg) → boolean. World.setBlock. */
+    public interface BoolXYZI { boolean call(Object target, int x, int y, int z, int arg); }
+
+    /** (x, y, z, a, b) → boolean. Chunk.setBlockIDWithMetadata. */
+    public interface BoolXYZII { boolean call(Object target, int x, int y, int z, int a, int b); }
+
+    /** (x, y, z) → void. World.markBlockForUpdate, World.updateAllLightTypes. */
+    public interface VoidXYZ { void call(Object target, int x, int y, int z); }
+
+    /** (x, y, z, arg) → void. World.notifyBlockChange. */
+    public interface VoidXYZI { void call(Object target, int x, int y, int z, int arg); }
+
+    /** Block.harvestBlock(World, EntityPlayer, x, y, z, meta) → void. */
+    public interface Harvest { void call(Object block, Object world, Object player, int x, int y, int z, int meta); }
+
+    /** Block.onNeighborBlockChange(World, x, y, z, changedId) → void. */
+    public interface NeighborChange { void call(Object block, Object world, int x, int y, int z, int changedId); }
+
+    /** Block.dropBlockAsItemWithChance(World, x, y, z, meta, chance, fortune) → void. */
+    public interface DropChance {
+        void call(Object block, Object world, int x, int y, int z, int meta, float chance, int fortune);
+    }
+
+    /** Block.idDropped(meta, Random, fortune) → int. */
+    public interface IdDropped { int call(Object block, int meta, Random rand, int fortune); }
+
+    /** (Object) → int. Block.quantityDropped(Random). */
+    public interface IntObj { int call(Object target, Object arg); }
+
+    /** (int) → int. Block.damageDropped(meta). */
+    public interface IntInt { int call(Object target, int arg); }
+
+    /** (Object) → boolean. EntityPlayer.canHarvestBlock(Block). */
+    public interface BoolObj { boolean call(Object target, Object arg); }
+
+    /** (Object, int) → boolean. Block.canHarvestBlock(EntityPlayer, meta). */
+    public interface BoolObjInt { boolean call(Object target, Object arg, int i); }
+
+    /** (int, Object) → void. ItemStack.damageItem(amount, EntityLiving). */
+    public interface VoidIntObj { void call(Object target, int arg, Object obj); }
+
+    /** () → int. ItemStack.getMaxStackSize. */
+    public interface IntNoArg { int call(Object target); }
+
+    /** () → boolean. ItemStack.isItemStackDamageable. */
+    public interface BoolNoArg { boolean call(Object target); }
+
+    /** () → Object. InventoryPlayer.getCurrentItem, Chunk.getBlockStorageArray, World.getChunkProvider. */
+    public interface ObjNoArg { Object call(Object target); }
+
+    // -----------------------------------------------------------------------
+    // Binding
+    // -----------------------------------------------------------------------
+
+    // Resolve-time only: bound invokers shared across callers (inherited Block methods etc.)
+    private static final Map<String, Object> boundCache = new HashMap<String, Object>();
+    private static final Map<ClassLoader, DefiningLoader> loaders = new HashMap<ClassLoader, DefiningLoader>();
+    private static int generatedCount;
+
+    /**
+     * Bind a resolved instance method to a typed invoker interface.
+     * Returns null if target is null or its signature does not fit the interface.
+     */
+    @SuppressWarnings("unchecked")
+    public static synchronized <T> T bind(Class<T> iface, Method target) {
+        if (target == null) return null;
+        target = rootDeclaration(target);
+        Method sam = iface.getMethods()[0];
+        if (!fits(sam, target)) {
+            OvmLog.warn("invoker signature mismatch: {}", iface.getSimpleName() + " <- " + target);
+            return null;
+        }
+
+        String key = iface.getName() + "|" + target.toString();
+        Object cached = boundCache.get(key);
+        if (cached != null) return (T) cached;
+
+        T bound = null;
+        try {
+            bound = generate(iface, sam, target);
+        } catch (Throwable t) {
+            OvmLog.warn("invoker generation failed for {}", target + ": " + t);
+        }
+        if (bound == null) bound = reflective(iface, target);
+        boundCache.put(key, bound);
+        return bound;
+    }
+
+    /**
+     * Walk up to the topmost public declaration of the same method, so one call site works
+     * for every subclass (WorldServer and WorldClient share World's declaration).
+     */
+    private static Method rootDeclaration(Method m) {
+        Method root = m;
+        for (Class<?> c = m.getDeclaringClass().getSuperclass(); c != null && c != Object.class; c = c.getSuperclass()) {
+            try {
+                Method up = c.getMethod(m.getName(), m.getParameterTypes());
+                if (up.getReturnType() == m.getReturnType()) root = up;
+            } catch (Exception ignored) {}
+        }
+        return root;
+    }
+
+    private static boolean fits(Method sam, Method target) {
+        Class<?>[] ip = sam.getParameterTypes();
+        Class<?>[] tp = target.getParameterTypes();
+        if (Modifier.isStatic(target.getModifiers()) || ip.length != tp.length + 1) return false;
+        for (int i = 0; i < tp.length; i++) {
+            Class<?> a = ip[i + 1], b = tp[i];
+            if (a.isPrimitive() || b.isPrimitive()) { if (a != b) return false; }
+        }
+        Class<?> ir = sam.getReturnType(), tr = target.getReturnType();
+        if (ir == void.class) return true;
+        if (ir.isPrimitive() || tr.isPrimitive()) return ir == tr;
+        return true;
+    }
+
+    // -----------------------------------------------------------------------
+    // Bytecode generation
+    // -----------------------------------------------------------------------
+
+    private static <T> T generate(Class<T> iface, Method sam, Method target) throws Exception {
+        Class<?> owner = target.getDeclaringClass();
+        if (!Modifier.isPublic(owner.getModifiers()) || !Modifier.isPublic(target.getModifiers())) return null;
+        for (Class<?> p : target.getParameterTypes())
+            if (!p.isPrimitive() && !Modifier.isPublic(p.getModifiers())) return null;
+
+        ClassLoader parent = owner.getClassLoader();
+        if (parent == null) return null;
+        try {
+            if (Class.forName(iface.getName(), false, parent) != iface) return null;
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+
+        String name = "com/ovm/Invokers$Generated" + (++generatedCount);
+        String ownerName = Type.getInternalName(owner);
+
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(Opcodes.V1_6, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER, name, null,
+                 "java/lang/Object", new String[]{ Type.getInternalName(iface) });
+
+        MethodVisitor ctor = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        ctor.visitCode();
+        ctor.visitVarInsn(Opcodes.ALOAD, 0);
+        ctor.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V");
+        ctor.visitInsn(Opcodes.RETURN);
+        ctor.visitMaxs(0, 0);
+        ctor.visitEnd();
+
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, sam.getName(), Type.getMethodDescriptor(sam), null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 1);
+        mv.visitTypeInsn(Opcodes.CHECKCAST, ownerName);
+        Class<?>[] ip = sam.getParameterTypes();
+        Class<?>[] tp = target.getParameterTypes();
+        int slot = 2;
+        for (int i = 0; i < tp.length; i++) {
+            Type t = Type.getType(ip[i + 1]);
+            mv.visitVarInsn(t.getOpcode(Opcodes.ILOAD), slot);
+            if (!tp[i].isPrimitive() && !tp[i].isAssignableFrom(ip[i + 1]))
+                mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(tp[i]));
+            slot += t.getSize();
+        }
+        boolean itf = owner.isInterface();
+        mv.visitMethodInsn(itf ? Opcodes.INVOKEINTERFACE : Opcodes.INVOKEVIRTUAL,
+                           ownerName, target.getName(), Type.getMethodDescriptor(target));
+        Class<?> ir = sam.getReturnType(), tr = target.getReturnType();
+        if (ir == void.class) {
+            if (tr != void.class) mv.visitInsn(Type.getType(tr).getSize() == 2 ? Opcodes.POP2 : Opcodes.POP);
+            mv.visitInsn(Opcodes.RETURN);
+        } else {
+            mv.visitInsn(Type.getType(ir).getOpcode(Opcodes.IRETURN));
+        }
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+        cw.visitEnd();
+
+        DefiningLoader loader = loaders.get(parent);
+        if (loader == null) { loader = new DefiningLoader(parent); loaders.put(parent, loader); }
+        Class<?> cls = loader.define(name.replace('/', '.'), cw.toByteArray());
+        return iface.cast(cls.newInstance());
+    }
+
+    /**
+     * Generate a class implementing a world listener interface (IWorldAccess as resolved at
+     * runtime): blockMarked and rangeMarked forward their int arguments to listener, every other
+     * method does nothing and returns a default, toString() returns label. Null if generation
+     * is impossible.
+     */
+    static synchronized Object implementListener(Class<?> iface, Method blockMarked, Method rangeMarked,
+                                                 McAccessor.BlockListener listener, String label) {
+        try {
+            ClassLoader parent = iface.getClassLoader();
+            if (parent == null) return null;
+            // The generated class calls BlockListener: it must resolve to ours from iface's loader
+            if (Class.forName(McAccessor.BlockListener.class.getName(), false, parent) != McAccessor.BlockListener.class)
+                return null;
+
+            String name = "com/ovm/Invokers$Listener" + (++generatedCount);
+            String listenerName = Type.getInternalName(McAccessor.BlockListener.class);
+            String listenerDesc = Type.getDescriptor(McAccessor.BlockListener.class);
+
+            ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+            cw.visit(Opcodes.V1_6, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER, name, null,
+                     "java/lang/Object", new String[]{ Type.getInternalName(iface) });
+            cw.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, "listener", listenerDesc, null, null).visitEnd();
+
+            MethodVisitor ctor = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "(" + listenerDesc + ")V", null, null);
+            ctor.visitCode();
+            ctor.visitVarInsn(Opcodes.ALOAD, 0);
+            ctor.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V");
+            ctor.visitVarInsn(Opcodes.ALOAD, 0);
+            ctor.visitVarInsn(Opcodes.ALOAD, 1);
+            ctor.visitFieldInsn(Opcodes.PUTFIELD, name, "listener", listenerDesc);
+            ctor.visitInsn(Opcodes.RETURN);
+            ctor.visitMaxs(0, 0);
+            ctor.visitEnd();
+
+            MethodVisitor str = cw.visitMethod(Opcodes.ACC_PUBLIC, "toString", "()Ljava/lang/String;", null, null);
+            str.visitCode();
+            str.visitLdcInsn(label);
+            str.visitInsn(Opcodes.ARETURN);
+            str.visitMaxs(0, 0);
+            str.visitEnd();
+
+            java.util.Set<String> done = new java.util.HashSet<String>();
+            for (Method m : iface.getMethods()) {
+                String desc = Type.getMethodDescriptor(m);
+                if (!done.add(m.getName() + desc)) continue;
+                MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, m.getName(), desc, null, null);
+                mv.visitCode();
+                String forward = m.equals(blockMarked) ? "onBlockMarked" : m.equals(rangeMarked) ? "onRangeMarked" : null;
+                if (forward != null) {
+                    mv.visitVarInsn(Opcodes.ALOAD, 0);
+                    mv.visitFieldInsn(Opcodes.GETFIELD, name, "listener", listenerDesc);
+                    for (int i = 0; i < m.getParameterTypes().length; i++) mv.visitVarInsn(Opcodes.ILOAD, i + 1);
+                    mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, listenerName, forward, desc);
+                }
+                Type ret = Type.getReturnType(m);
+                switch (ret.getSort()) {
+                    case Type.VOID:   break;
+                    case Type.LONG:   mv.visitInsn(Opcodes.LCONST_0); break;
+                    case Type.FLOAT:  mv.visitInsn(Opcodes.FCONST_0); break;
+                    case Type.DOUBLE: mv.visitInsn(Opcodes.DCONST_0); break;
+                    case Type.OBJECT:
+                    case Type.ARRAY:  mv.visitInsn(Opcodes.ACONST_NULL); break;
+                    default:          mv.visitInsn(Opcodes.ICONST_0); break;
+                }
+                mv.visitInsn(ret.getSort() == Type.VOID ? Opcodes.RETURN : ret.getOpcode(Opcodes.IRETURN));
+                mv.visitMaxs(0, 0);
+                mv.visitEnd();
+            }
+            cw.visitEnd();
+
+            DefiningLoader loader = loaders.get(parent);
+            if (loader == null) { loader = new DefiningLoader(parent); loaders.put(parent, loader); }
+            Class<?> cls = loader.define(name.replace('/', '.'), cw.toByteArray());
+            return cls.getConstructor(McAccessor.BlockListener.class).newInstance(listener);
+        } catch (Throwable t) {
+            OvmLog.warn("listener generation failed for {}", iface.getName() + ": " + t);
+            return null;
+        }
+    }
+
+    private static final class DefiningLoader extends ClassLoader {
+        DefiningLoader(ClassLoader parent) { super(parent); }
+        Class<?> define(String name, byte[] code) { return defineClass(name, code, 0, code.length); }
+    }
+
+    // -----------------------------------------------------------------------
+    // Reflective fallback
+    // -----------------------------------------------------------------------
+
+    private static <T> T reflective(Class<T> iface, final Method target) {
+        target.setAccessible(true);
+        final Class<?> ret = iface.getMethods()[0].getReturnType();
+        Object proxy = Proxy.newProxyInstance(iface.getClassLoader(), new Class<?>[]{ iface }, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if (method.getDeclaringClass() == Object.class) return method.invoke(this, args);
+                Object[] rest = new Object[args.length - 1];
+                System.arraycopy(args, 1, rest, 0, rest.length);
+                try {
+                    Object result = target.invoke(args[0], rest);
+                    return result != null || ret == void.class ? result : Reflect.defaultValue(ret);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        });
+        OvmLog.info("reflective invoker for {}", target);
+        return iface.cast(proxy);
+    }
+}
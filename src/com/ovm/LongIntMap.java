@@ -0,0 +1,76 @@
+package com.ovm;
+
+/**
+ * Open-addressing map from primitive long to int (linear probing, power-of-two table).
+ * Used for per-position state keyed by packed block positions.
+ */
+public final class LongIntMap {
+
+    private long[] keys;
+    private int[] values;
+    private boolean[] used;
+    private int size;
+    private int mask;
+    private int resizeAt;
+
+    public LongIntMap(int expected) {
+        int cap = 16;
+        while (cap * 3 < expected * 4) cap <<= 1;
+        alloc(cap);
+    }
+
+    public int size() { return size; }
+
+    /** Value for key, or missing if absent. */
+    public int get(long key, int missing) {
+        int i = slot(key);
+        while (used[i]) {
+            if (keys[i] == key) return values[i];
+            i = (i + 1) & mask;
+        }
+        return missing;
+    }
+
+    public void put(long key, int value) {
+        int i = slot(key);
+        while (used[i]) {
+            if (keys[i] == key) { values[i] = value; return; }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        used[i] = true;
+        if (++size >= resizeAt) rehash();
+    }
+
+    private int slot(long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+
+    private void alloc(int cap) {
+        keys = new long[cap];
+        values = new int[cap];
+        used = new boolean[cap];
+        mask = cap - 1;
+        resizeAt = cap * 3 / 4;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        alloc(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (!oldUsed[i]) continue;
+            int j = slot(oldKeys[i]);
+            while (used[j]) j = (j + 1) & mask;
+            keys[j] = oldKeys[i];
+            values[j] = oldValues[i];
+            used[j] = true;
+        }
+    }
+}
@@ -2,14 +2,23 @@ package com.ovm;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
-import java.util.HashMap;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Cached accessors for Minecraft objects via reflection.
  * Separates "how to call Minecraft" from game logic.
  * All lookups cached after first successful resolution.
+ * Per-block world calls are bound to generated direct-call invokers (see Invokers).
+ *
+ * Resolved members are volatile statics (caches are concurrent maps): chunk section reads run
+ * on search worker threads, and a racing first resolution just binds the same member twice.
+ * World writes and entity access remain main-thread only.
  */
 public class McAccessor {
 
@@ -17,7 +26,7 @@ public class McAccessor {
     // Minecraft instance (client-only)
     // -----------------------------------------------------------------------
 
-    private static Object cachedMc;
+    private static volatile Object cachedMc;
 
     /** Get the Minecraft singleton. Returns null on server side or before init. */
     public static Object getMc() {
@@ -32,95 +41,497 @@ public class McAccessor {
     }
 
     // -----------------------------------------------------------------------
-    // World accessors (cached method lookup)
+    // World accessors (resolved once, then direct-call invokers)
     // -----------------------------------------------------------------------
 
-    private static Method getBlockIdMethod;
+    private static volatile Invokers.IntXYZ getBlockIdInvoker;
 
     public static int getBlockId(Object world, int x, int y, int z) {
         try {
-            if (getBlockIdMethod == null) {
+            if (getBlockIdInvoker == null) {
                 for (String n : new String[]{ "getBlockId", "a" }) {
-                    try { getBlockIdMethod = world.getClass().getMethod(n, int.class, int.class, int.class); break; }
-                    catch (Exception ignored) {}
+                    try {
+                        Method m = world.getClass().getMethod(n, int.class, int.class, int.class);
+                        getBlockIdInvoker = Invokers.bind(Invokers.IntXYZ.class, m);
+                        break;
+                    } catch (Exception ignored) {}
                 }
             }
-            return getBlockIdMethod != null ? (Integer) getBlockIdMethod.invoke(world, x, y, z) : 0;
+            return getBlockIdInvoker != null ? getBlockIdInvoker.call(world, x, y, z) : 0;
         } catch (Exception e) { return 0; }
     }
 
-    private static Method getBlockMetaMethod;
+    private static volatile Invokers.IntXYZ getBlockMetaInvoker;
 
     public static int getBlockMeta(Object world, int x, int y, int z) {
         try {
-            if (getBlockMetaMethod == null) {
+            if (getBlockMetaInvoker == null) {
                 for (String n : new String[]{ "getBlockMetadata", "h" }) {
-                    try { getBlockMetaMethod = world.getClass().getMethod(n, int.class, int.class, int.class); break; }
-                    catch (Exception ignored) {}
+                    try {
+                        Method m = world.getClass().getMethod(n, int.class, int.class, int.class);
+                        getBlockMetaInvoker = Invokers.bind(Invokers.IntXYZ.class, m);
+                        break;
+                    } catch (Exception ignored) {}
                 }
             }
-            return getBlockMetaMethod != null ? (Integer) getBlockMetaMethod.invoke(world, x, y, z) : 0;
+            return getBlockMetaInvoker != null ? getBlockMetaInvoker.call(world, x, y, z) : 0;
         } catch (Exception e) { return 0; }
     }
 
-    private static Method setBlockMethod;
-    private static Method markBlockForUpdateMethod;
-    private static Method notifyBlockChangeMethod;
+    private static volatile Invokers.BoolXYZI setBlockInvoker;
+    private static volatile Invokers.VoidXYZ markBlockForUpdateInvoker;
+    private static volatile Invokers.VoidXYZI notifyBlockChangeInvoker;
 
     public static void setBlock(Object world, int x, int y, int z, int id) {
         try {
-            if (setBlockMethod == null) {
+            if (setBlockInvoker == null) {
                 for (String n : new String[]{ "setBlock", "b" }) {
                     try {
                         Method m = world.getClass().getMethod(n, int.class, int.class, int.class, int.class);
-                        if (m.getReturnType() == boolean.class) { setBlockMethod = m; break; }
+                        if (m.getReturnType() == boolean.class) {
+                            setBlockInvoker = Invokers.bind(Invokers.BoolXYZI.class, m);
+                            break;
+                        }
                     } catch (Exception ignored) {}
                 }
-                if (setBlockMethod == null) {
+                if (setBlockInvoker == null) {
                     for (String n : new String[]{ "setBlockWithNotify", "c" }) {
-                        try { setBlockMethod = world.getClass().getMethod(n, int.class, int.class, int.class, int.class); break; }
-                        catch (Exception ignored) {}
+                        try {
+                            Method m = world.getClass().getMethod(n, int.class, int.class, int.class, int.class);
+                            setBlockInvoker = Invokers.bind(Invokers.BoolXYZI.class, m);
+                            break;
+                        } catch (Exception ignored) {}
                     }
                 }
             }
-            if (markBlockForUpdateMethod == null) {
-                for (String n : new String[]{ "markBlockForUpdate", "h" }) {
+            if (setBlockInvoker == null) return;
+            setBlockInvoker.call(world, x, y, z, id);
+            markAndNotify(world, x, y, z, id);
+        } catch (Exception e) {
+            OvmLog.error("setBlock error: {}", e);
+        }
+    }
+
+    /**
+     * Client sync marks for the block and its six face neighbours, then World.notifyBlockChange.
+     * Everything setBlock does after the world write.
+     */
+    public static void markAndNotify(Object world, int x, int y, int z, int id) {
+        markForUpdate(world, x, y, z);
+        notifyBlockChange(world, x, y, z, id);
+    }
+
+    /** World.markBlockForUpdate on the block and its six face neighbours. */
+    public static void markForUpdate(Object world, int x, int y, int z) {
+        try {
+            Invokers.VoidXYZ mark = markInvoker(world);
+            if (mark != null) {
+                mark.call(world, x,     y,     z);
+                mark.call(world, x + 1, y,     z);
+                mark.call(world, x - 1, y,     z);
+                mark.call(world, x,     y + 1, z);
+                mark.call(world, x,     y - 1, z);
+                mark.call(world, x,     y,     z + 1);
+                mark.call(world, x,     y,     z - 1);
+            }
+        } catch (Exception e) {
+            OvmLog.error("markForUpdate error: {}", e);
+        }
+    }
+
+    /** World.markBlockForUpdate on the block only: queues it for the next chunk update to watching clients. */
+    public static void markBlock(Object world, int x, int y, int z) {
+        try {
+            Invokers.VoidXYZ mark = markInvoker(world);
+            if (mark != null) mark.call(world, x, y, z);
+        } catch (Exception e) {
+            OvmLog.error("markBlock error: {}", e);
+        }
+    }
+
+    private static Invokers.VoidXYZ markInvoker(Object world) {
+        if (markBlockForUpdateInvoker == null) {
+            for (String n : new String[]{ "markBlockForUpdate", "h" }) {
+                try {
+                    Method m = world.getClass().getMethod(n, int.class, int.class, int.class);
+                    if (m.getReturnType() == void.class) {
+                        markBlockForUpdateInvoker = Invokers.bind(Invokers.VoidXYZ.class, m);
+                        break;
+                    }
+                } catch (Exception ignored) {}
+            }
+        }
+        return markBlockForUpdateInvoker;
+    }
+
+    /** World.notifyBlockChange: onNeighborBlockChange for all six face neighbours. */
+    public static void notifyBlockChange(Object world, int x, int y, int z, int id) {
+        try {
+            if (notifyBlockChangeInvoker == null) {
+                for (String n : new String[]{ "notifyBlockChange", "f" }) {
                     try {
-                        Method m = world.getClass().getMethod(n, int.class, int.class, int.class);
-                        if (m.getReturnType() == void.class) { markBlockForUpdateMethod = m; break; }
+                        Method m = world.getClass().getMethod(n, int.class, int.class, int.class, int.class);
+                        if (m.getReturnType() == void.class) {
+                            notifyBlockChangeInvoker = Invokers.bind(Invokers.VoidXYZI.class, m);
+                            break;
+                        }
                     } catch (Exception ignored) {}
                 }
             }
-            if (notifyBlockChangeMethod == null) {
-                for (String n : new String[]{ "notifyBlockChange", "f" }) {
+            if (notifyBlockChangeInvoker != null) notifyBlockChangeInvoker.call(world, x, y, z, id);
+        } catch (Exception e) {
+            OvmLog.error("notifyBlockChange error: {}", e);
+        }
+    }
+
+    private static volatile Invokers.NeighborChange neighborChangeInvoker;
+    private static volatile boolean notifyNeighborResolved;
+
+    /**
+     * Resolve Block.onNeighborBlockChange(World, x, y, z, changedId), which World.notifyBlockChange
+     * calls on each face neighbour (through the private notifyBlockOfNeighborChange). Matched by name
+     * ("onNeighborBlockChange", "a") and signature: void, the World class, four ints. Public, so
+     * the invoker is a direct call. The resolved method is logged. False if unresolved.
+     */
+    public static boolean canNotifyNeighbor(Object world) {
+        if (!notifyNeighborResolved) {
+            notifyNeighborResolved = true;
+            Object stone = getBlock(1);
+            Class<?> worldClass = world.getClass();
+            while (worldClass.getSuperclass() != null && worldClass.getSuperclass() != Object.class)
+                worldClass = worldClass.getSuperclass();
+            if (stone != null) {
+                for (String n : new String[]{ "onNeighborBlockChange", "a" }) {
                     try {
-                        Method m = world.getClass().getMethod(n, int.class, int.class, int.class, int.class);
-                        if (m.getReturnType() == void.class) { notifyBlockChangeMethod = m; break; }
+                        Method m = stone.getClass().getMethod(n, worldClass, int.class, int.class, int.class, int.class);
+                        if (m.getReturnType() == void.class) {
+                            neighborChangeInvoker = Invokers.bind(Invokers.NeighborChange.class, m);
+                            OvmLog.info("neighbour notifications through {}", m);
+                            break;
+                        }
                     } catch (Exception ignored) {}
                 }
             }
-            if (setBlockMethod == null) return;
-            setBlockMethod.invoke(world, x, y, z, id);
-            if (markBlockForUpdateMethod != null) {
-                markBlockForUpdateMethod.invoke(world, x,     y,     z);
-                markBlockForUpdateMethod.invoke(world, x + 1, y,     z);
-                markBlockForUpdateMethod.invoke(world, x - 1, y,     z);
-                markBlockForUpdateMethod.invoke(world, x,     y + 1, z);
-                markBlockForUpdateMethod.invoke(world, x,     y - 1, z);
-                markBlockForUpdateMethod.invoke(world, x,     y,     z + 1);
-                markBlockForUpdateMethod.invoke(world, x,     y,     z - 1);
+            if (neighborChangeInvoker == null)
+                OvmLog.warn("Block.onNeighborBlockChange unavailable; notifying per removed block");
+        }
+        return neighborChangeInvoker != null;
+    }
+
+    /**
+     * onNeighborBlockChange(world, x, y, z, changedId) on the block at (x, y, z), as
+     * World.notifyBlockOfNeighborChange does on a server world. Requires canNotifyNeighbor.
+     */
+    public static void notifyNeighbor(Object world, int x, int y, int z, int changedId) {
+        try {
+            Object block = getBlock(getBlockId(world, x, y, z));
+            if (block != null) neighborChangeInvoker.call(block, world, x, y, z, changedId);
+        } catch (Exception e) {
+            OvmLog.error("notifyNeighbor error: {}", e);
+        }
+    }
+
+    // -----------------------------------------------------------------------
+    // Deferred-light block writes (BulkRemoval)
+    // -----------------------------------------------------------------------
+
+    private static volatile Invokers.BoolXYZII chunkSetBlockInvoker;
+    private static volatile Invokers.VoidXYZ updateLightInvoker;
+    private static volatile boolean bulkWriteResolved;
+
+    /**
+     * Resolve Chunk.setBlockIDWithMetadata and World.updateAllLightTypes.
+     * Returns false if either is missing; callers then use setBlock per block.
+     */
+    public static boolean canWriteWithoutLight(Object world, Object chunk) {
+        if (bulkWriteResolved) return chunkSetBlockInvoker != null && updateLightInvoker != null;
+        bulkWriteResolved = true;
+        // Chunk.setBlockIDWithMetadata(x, y, z, id, meta) → boolean: the only 5-int boolean method on Chunk
+        for (Method m : chunk.getClass().getMethods()) {
+            Class<?>[] p = m.getParameterTypes();
+            if (m.getReturnType() == boolean.class && p.length == 5 && p[0] == int.class && p[1] == int.class
+                    && p[2] == int.class && p[3] == int.class && p[4] == int.class) {
+                chunkSetBlockInvoker = Invokers.bind(Invokers.BoolXYZII.class, m); break;
+            }
+        }
+        for (String n : new String[]{ "updateAllLightTypes", "z" }) {
+            try {
+                Method m = world.getClass().getMethod(n, int.class, int.class, int.class);
+                if (m.getReturnType() == void.class) {
+                    updateLightInvoker = Invokers.bind(Invokers.VoidXYZ.class, m); break;
+                }
+            } catch (Exception ignored) {}
+        }
+        if (chunkSetBlockInvoker == null || updateLightInvoker == null)
+            OvmLog.warn("deferred lighting unavailable; removing blocks one by one");
+        return chunkSetBlockInvoker != null && updateLightInvoker != null;
+    }
+
+    /**
+     * Chunk-level write at world coordinates: block removal hooks, heightmap and the chunk's own
+     * sky light column updates run as in World.setBlock, but not World.updateAllLightTypes.
+     * Pair with updateLight once the batch is written.
+     */
+    public static boolean setBlockWithoutLight(Object chunk, int x, int y, int z, int id) {
+        try {
+            return chunkSetBlockInvoker.call(chunk, x & 15, y, z & 15, id, 0);
+        } catch (Exception e) {
+            OvmLog.error("setBlockWithoutLight error: {}", e);
+            return false;
+        }
+    }
+
+    /** World.updateAllLightTypes(x, y, z): sky and block light recomputed from this position. */
+    public static void updateLight(Object world, int x, int y, int z) {
+        try {
+            updateLightInvoker.call(world, x, y, z);
+        } catch (Exception e) {
+            OvmLog.error("updateLight error: {}", e);
+        }
+    }
+
+    // -----------------------------------------------------------------------
+    // World change listener (IWorldAccess)
+    // -----------------------------------------------------------------------
+
+    /** Block change callbacks delivered through a world's IWorldAccess list (public: called from generated classes). */
+    public interface BlockListener {
+        /** markBlockForUpdate: the block at x, y, z changed (ID or metadata). */
+        void onBlockMarked(int x, int y, int z);
+        /** markBlockRangeForRenderUpdate: any block in the box may have changed (chunk data). */
+        void onRangeMarked(int x1, int y1, int z1, int x2, int y2, int z2);
+    }
+
+    /**
+     * World.addWorldAccess(IWorldAccess) with a listener forwarding to listener.
+     * IWorldAccess methods are matched by name and arity: markBlockForUpdate ("a", 3 ints) and
+     * markBlockRangeForRenderUpdate ("a", 6 ints); markBlockForRenderUpdate ("b", 3 ints, light
+     * changes) and the sound/particle/entity callbacks are ignored. The listener is a generated
+     * class implementing the runtime interface (Invokers.implementListener), so world marks
+     * cost one interface call; a dynamic proxy is the fallback. Works on server and client
+     * worlds. Returns false if the method cannot be resolved.
+     */
+    static boolean addBlockListener(Object world, final String label, final BlockListener listener) {
+        try {
+            Method add = null;
+            for (String n : new String[]{ "addWorldAccess", "a" }) {
+                for (Method m : world.getClass().getMethods()) {
+                    Class<?>[] p = m.getParameterTypes();
+                    if (m.getName().equals(n) && p.length == 1 && p[0].isInterface() && m.getReturnType() == void.class) {
+                        add = m; break;
+                    }
+                }
+                if (add != null) break;
+            }
+            if (add == null) return false;
+            Class<?> iface = add.getParameterTypes()[0];
+            final Method blockMarked = findIntsMethod(iface, "markBlockForUpdate", 3);
+            final Method rangeMarked = findIntsMethod(iface, "markBlockRangeForRenderUpdate", 6);
+            if (blockMarked == null || rangeMarked == null) return false;
+
+            Object impl = Invokers.implementListener(iface, blockMarked, rangeMarked, listener, label);
+            if (impl == null) {
+                OvmLog.info("reflective world listener for {}", iface.getName());
+                impl = Proxy.newProxyInstance(iface.getClassLoader(), new Class<?>[]{ iface }, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        if (method.getDeclaringClass() == Object.class) {
+                            if (method.getName().equals("equals")) return proxy == args[0];
+                            if (method.getName().equals("hashCode")) return System.identityHashCode(proxy);
+                            return label;
+                        }
+                        if (method.equals(blockMarked))
+                            listener.onBlockMarked((Integer) args[0], (Integer) args[1], (Integer) args[2]);
+                        else if (method.equals(rangeMarked))
+                            listener.onRangeMarked((Integer) args[0], (Integer) args[1], (Integer) args[2],
+                                                   (Integer) args[3], (Integer) args[4], (Integer) args[5]);
+                        Class<?> ret = method.getReturnType();
+                        return ret.isPrimitive() ? Reflect.defaultValue(ret) : null;
+                    }
+                });
             }
-            if (notifyBlockChangeMethod != null) notifyBlockChangeMethod.invoke(world, x, y, z, id);
+            add.invoke(world, impl);
+            return true;
         } catch (Exception e) {
-            System.out.println("[OVM] setBlock error: " + e);
+            OvmLog.error("addWorldAccess error: {}", e);
+            return false;
         }
     }
 
+    /** void method of iface named name (or obf "a") taking exactly arity ints. */
+    private static Method findIntsMethod(Class<?> iface, String name, int arity) {
+        for (String n : new String[]{ name, "a" }) {
+            for (Method m : iface.getMethods()) {
+                Class<?>[] p = m.getParameterTypes();
+                if (!m.getName().equals(n) || p.length != arity || m.getReturnType() != void.class) continue;
+                boolean ints = true;
+                for (Class<?> c : p) if (c != int.class) ints = false;
+                if (ints) return m;
+            }
+        }
+        return null;
+    }
+
+    // -----------------------------------------------------------------------
+    // Chunk sections (raw block arrays, read by ChunkReader)
+    // -----------------------------------------------------------------------
+
+    private static volatile Invokers.ObjII getChunkInvoker;
+    private static volatile Invokers.ObjNoArg getStorageArrayInvoker;
+    private static volatile Invokers.ObjNoArg getLsbArrayInvoker;
+    private static volatile Field msbArrayField;
+    private static volatile Field metaArrayField;
+    private static volatile Field nibbleDataField;
+
+    /** World.getChunkFromChunkCoords(cx, cz). Returns null if unresolved. */
+    public static Object getChunk(Object world, int cx, int cz) {
+        try {
+            if (getChunkInvoker == null) {
+                for (String n : new String[]{ "getChunkFromChunkCoords", "e" }) {
+                    try {
+                        Method m = world.getClass().getMethod(n, int.class, int.class);
+                        if (!m.getReturnType().isPrimitive()) {
+                            getChunkInvoker = Invokers.bind(Invokers.ObjII.class, m);
+                            break;
+                        }
+                    } catch (Exception ignored) {}
+                }
+            }
+            return getChunkInvoker != null ? getChunkInvoker.call(world, cx, cz) : null;
+        } catch (Exception e) { return null; }
+    }
+
+    private static volatile Invokers.ObjNoArg getChunkProviderInvoker;
+    private static volatile Invokers.BoolII chunkExistsInvoker;
+    private static volatile boolean chunkExistsResolved;
+
+    /**
+     * IChunkProvider.chunkExists(cx, cz) through World.getChunkProvider(): true if the chunk is
+     * in memory (ChunkProviderServer: loaded; the client provider answers true). Unlike
+     * getChunk and World.getBlockId, never loads or generates a chunk. Both members are found
+     * by signature: the provider is the no-arg World method returning an interface with a
+     * boolean (int, int) method, and that method is the only one of its kind. Returns true if
+     * unresolved (reads then behave as before).
+     */
+    public static boolean chunkExists(Object world, int cx, int cz) {
+        try {
+            if (!chunkExistsResolved) resolveChunkExists(world);
+            if (chunkExistsInvoker == null) return true;
+            Object provider = getChunkProviderInvoker.call(world);
+            return provider == null || chunkExistsInvoker.call(provider, cx, cz);
+        } catch (Exception e) { return true; }
+    }
+
+    private static synchronized void resolveChunkExists(Object world) {
+        if (chunkExistsResolved) return;
+        for (Method m : world.getClass().getMethods()) {
+            if (m.getParameterTypes().length != 0 || !m.getReturnType().isInterface()) continue;
+            for (Method e : m.getReturnType().getMethods()) {
+                Class<?>[] p = e.getParameterTypes();
+                if (e.getReturnType() == boolean.class && p.length == 2 && p[0] == int.class && p[1] == int.class) {
+                    getChunkProviderInvoker = Invokers.bind(Invokers.ObjNoArg.class, m);
+                    chunkExistsInvoker = Invokers.bind(Invokers.BoolII.class, e);
+                    break;
+                }
+            }
+            if (chunkExistsInvoker != null) break;
+        }
+        if (chunkExistsInvoker == null || getChunkProviderInvoker == null) {
+            chunkExistsInvoker = null;
+            OvmLog.warn("chunkExists not resolved; reads may load chunks");
+        }
+        chunkExistsResolved = true;
+    }
+
+    /** getChunk if the chunk is loaded, else null (never loads or generates one). */
+    public static Object getLoadedChunk(Object world, int cx, int cz) {
+        return chunkExists(world, cx, cz) ? getChunk(world, cx, cz) : null;
+    }
+
+    /** Chunk.getBlockStorageArray() → ExtendedBlockStorage[16]; entries are null for empty sections. */
+    public static Object[] getSections(Object chunk) {
+        try {
+            if (getStorageArrayInvoker == null) {
+                // Only no-arg method on Chunk returning an array of objects (getBiomeArray is byte[])
+                for (Method m : chunk.getClass().getMethods()) {
+                    Class<?> r = m.getReturnType();
+                    if (m.getParameterTypes().length == 0 && r.isArray() && !r.getComponentType().isPrimitive()
+                            && r.getComponentType() != Object.class) {
+                        getStorageArrayInvoker = Invokers.bind(Invokers.ObjNoArg.class, m); break;
+                    }
+                }
+            }
+            return getStorageArrayInvoker != null ? (Object[]) getStorageArrayInvoker.call(chunk) : null;
+        } catch (Exception e) { return null; }
+    }
+
+    /** ExtendedBlockStorage.getBlockLSBArray() → byte[4096], index y << 8 | z << 4 | x. */
+    public static byte[] getSectionLsb(Object section) {
+        try {
+            if (getLsbArrayInvoker == null) {
+                // Only no-arg method on ExtendedBlockStorage returning byte[]
+                for (Method m : section.getClass().getMethods()) {
+                    if (m.getParameterTypes().length == 0 && m.getReturnType() == byte[].class) {
+                        getLsbArrayInvoker = Invokers.bind(Invokers.ObjNoArg.class, m); break;
+                    }
+                }
+            }
+            return getLsbArrayInvoker != null ? (byte[]) getLsbArrayInvoker.call(section) : null;
+        } catch (Exception e) { return null; }
+    }
+
+    /**
+     * ExtendedBlockStorage.blockMSBArray.data → byte[2048] nibbles (block ID bits 8-11), or null
+     * when the section holds no extended IDs. Read as a field: the getter is indistinguishable
+     * by signature from the metadata/light getters, and createBlockMSBArray would allocate.
+     */
+    public static byte[] getSectionMsb(Object section) {
+        try {
+            if (msbArrayField == null) {
+                for (String n : new String[]{ "blockMSBArray", "e" }) {
+                    try { msbArrayField = Reflect.findField(section.getClass(), n); break; }
+                    catch (Exception ignored) {}
+                }
+                if (msbArrayField == null) return null;
+            }
+            return nibbleData(msbArrayField.get(section));
+        } catch (Exception e) { return null; }
+    }
+
+    /**
+     * ExtendedBlockStorage.blockMetadataArray.data → byte[2048] nibbles (metadata), or null if
+     * unresolved. A field for the same reason as getSectionMsb; ChunkReader validates it.
+     */
+    public static byte[] getSectionMeta(Object section) {
+        try {
+            if (metaArrayField == null) {
+                for (String n : new String[]{ "blockMetadataArray", "f" }) {
+                    try { metaArrayField = Reflect.findField(section.getClass(), n); break; }
+                    catch (Exception ignored) {}
+                }
+                if (metaArrayField == null) return null;
+            }
+            return nibbleData(metaArrayField.get(section));
+        } catch (Exception e) { return null; }
+    }
+
+    private static byte[] nibbleData(Object nibble) throws Exception {
+        if (nibble == null) return null;
+        if (nibbleDataField == null) {
+            // NibbleArray: data is its only byte[] field
+            for (Field f : nibble.getClass().getFields()) {
+                if (f.getType() == byte[].class) { nibbleDataField = f; break; }
+            }
+            if (nibbleDataField == null) return null;
+        }
+        return (byte[]) nibbleDataField.get(nibble);
+    }
+
     // -----------------------------------------------------------------------
     // Block registry
     // -----------------------------------------------------------------------
 
-    private static Object[] blocksListCache;
+    private static volatile Object[] blocksListCache;
 
     public static Object getBlock(int id) {
         try {
@@ -138,13 +549,51 @@ public class McAccessor {
         } catch (Exception e) { return null; }
     }
 
+    private static volatile int[] lightValueCache;
+    private static volatile boolean lightValueResolved;
+
+    /**
+     * Block.lightValue[id]: light the block emits, 0 if unknown. The array is the static int[]
+     * of Block named lightValue, or else the one holding torch 14 and glowstone 15.
+     */
+    public static int getLightValue(int id) {
+        if (!lightValueResolved) {
+            Object block = getBlock(1);
+            if (block != null) {
+                Class<?> cls = block.getClass();
+                while (cls.getSuperclass() != null && cls.getSuperclass() != Object.class) cls = cls.getSuperclass();
+                for (java.lang.reflect.Field f : cls.getDeclaredFields()) {
+                    if (f.getType() != int[].class || !java.lang.reflect.Modifier.isStatic(f.getModifiers())) continue;
+                    try {
+                        f.setAccessible(true);
+                        int[] a = (int[]) f.get(null);
+                        if (a == null || a.length <= 89) continue;
+                        if (f.getName().equals("lightValue") || (a[50] == 14 && a[89] == 15 && a[1] == 0)) {
+                            lightValueCache = a;
+                            break;
+                        }
+                    } catch (Exception ignored) {}
+                }
+            }
+            if (lightValueCache == null) OvmLog.warn("Block.lightValue not found; relighting every removed block");
+            lightValueResolved = true;
+        }
+        int[] a = lightValueCache;
+        return a == null ? 15 : id >= 0 && id < a.length ? a[id] : 0;
+    }
+
     // -----------------------------------------------------------------------
     // Player helpers
     // -----------------------------------------------------------------------
 
-    private static Field inventoryField;
-    private static Method inventoryGetCurrent;
-    private static Method getHeldItemMethod;
+    /** Entity.posX / posY / posZ. */
+    public static double getPosX(Object entity) { return Reflect.getField(entity, double.class, "posX", "t"); }
+    public static double getPosY(Object entity) { return Reflect.getField(entity, double.class, "posY", "u"); }
+    public static double getPosZ(Object entity) { return Reflect.getField(entity, double.class, "posZ", "v"); }
+
+    private static volatile Field inventoryField;
+    private static volatile Invokers.ObjNoArg inventoryGetCurrent;
+    private static volatile Method getHeldItemMethod;
 
     public static Object getHeldItem(Object player) {
         if (inventoryField == null) {
@@ -162,12 +611,12 @@ public class McAccessor {
                             try {
                                 Method m = inv.getClass().getMethod(n);
                                 if (m.getReturnType() != void.class && !m.getReturnType().isPrimitive()) {
-                                    inventoryGetCurrent = m; break;
+                                    inventoryGetCurrent = Invokers.bind(Invokers.ObjNoArg.class, m); break;
                                 }
                             } catch (Exception ignored) {}
                         }
                     }
-                    if (inventoryGetCurrent != null) return inventoryGetCurrent.invoke(inv);
+                    if (inventoryGetCurrent != null) return inventoryGetCurrent.call(inv);
                 }
             } catch (Exception ignored) {}
         }
@@ -185,6 +634,32 @@ public class McAccessor {
         catch (Exception e) { return null; }
     }
 
+    private static volatile Field mainInventoryField;
+
+    /**
+     * InventoryPlayer.mainInventory: ItemStack[36], hotbar first. Written in place by DropDelivery;
+     * the player's container picks the changes up on its next detectAndSendChanges.
+     */
+    public static Object[] getMainInventory(Object player) {
+        try {
+            Object inv = getInventory(player);
+            if (inv == null) return null;
+            if (mainInventoryField == null) {
+                for (String n : new String[]{ "mainInventory", "a" }) {
+                    try {
+                        Field f = Reflect.findField(inv.getClass(), n);
+                        if (f.getType().isArray() && !f.getType().getComponentType().isPrimitive()) {
+                            mainInventoryField = f;
+                            break;
+                        }
+                    } catch (Exception ignored) {}
+                }
+                if (mainInventoryField == null) return null;
+            }
+            return (Object[]) mainInventoryField.get(inv);
+        } catch (Exception e) { return null; }
+    }
+
     /** Get the player's inventory object (cached). */
     public static Object getInventory(Object player) {
         if (inventoryField == null) {
@@ -198,24 +673,33 @@ public class McAccessor {
     // ItemStack construction and field resolution
     // -----------------------------------------------------------------------
 
-    private static Constructor<?> itemStackCtor;
-    private static boolean itemStackCtorHasClass;
+    private static volatile Class<?> itemStackClass;
+    private static volatile Constructor<?> itemStackCtor;
+    private static volatile boolean itemStackCtorHasClass;
+
+    /** The ItemStack class, or null if none of the known names resolve. */
+    public static Class<?> getItemStackClass() {
+        if (itemStackClass == null) {
+            for (String cname : new String[]{ "net.minecraft.item.ItemStack", "ur", "yz" }) {
+                try { itemStackClass = Class.forName(cname); break; }
+                catch (Exception ignored) {}
+            }
+        }
+        return itemStackClass;
+    }
 
     public static Object makeItemStack(int itemId, int damage, int count) {
         try {
             if (itemStackCtor == null) {
-                for (String cname : new String[]{ "net.minecraft.item.ItemStack", "ur", "yz" }) {
+                Class<?> cls = getItemStackClass();
+                if (cls != null) {
                     try {
-                        Class<?> cls = Class.forName(cname);
-                        try {
-                            itemStackCtor = cls.getConstructor(int.class, int.class, int.class);
-                            itemStackCtorHasClass = false;
-                        } catch (Exception ignored) {
-                            itemStackCtor = cls.getConstructor(Class.class, int.class, int.class, int.class);
-                            itemStackCtorHasClass = true;
-                        }
-                        break;
-                    } catch (Exception ignored) {}
+                        itemStackCtor = cls.getConstructor(int.class, int.class, int.class);
+                        itemStackCtorHasClass = false;
+                    } catch (Exception ignored) {
+                        itemStackCtor = cls.getConstructor(Class.class, int.class, int.class, int.class);
+                        itemStackCtorHasClass = true;
+                    }
                 }
             }
             if (itemStackCtor == null) return null;
@@ -223,13 +707,13 @@ public class McAccessor {
                 ? itemStackCtor.newInstance((Object) null, itemId, count, damage)
                 : itemStackCtor.newInstance(itemId, count, damage);
         } catch (Exception e) {
-            System.out.println("[OVM] makeItemStack error: " + e);
+            OvmLog.error("makeItemStack error: {}", e);
             return null;
         }
     }
 
     // Per-class cache: [itemId, stackSize, itemDamage]
-    private static final Map<String, Field[]> stackFieldCache = new HashMap<String, Field[]>();
+    private static final Map<String, Field[]> stackFieldCache = new ConcurrentHashMap<String, Field[]>();
 
     /** Resolve ItemStack fields [itemId, stackSize, itemDamage] for the given stack instance. */
     public static Field[] resolveStackFields(Object stack) {
@@ -260,6 +744,122 @@ public class McAccessor {
         return (result[0] != null && result[1] != null && result[2] != null) ? result : null;
     }
 
+    public static void setStackSize(Object stack, int size) {
+        Field[] f = resolveStackFields(stack);
+        try { if (f[1] != null) f[1].setInt(stack, size); } catch (Exception ignored) {}
+    }
+
+    private static volatile Invokers.IntNoArg maxStackSizeInvoker;
+    private static volatile boolean maxStackSizeResolved;
+
+    /**
+     * ItemStack.getMaxStackSize(), or 0 if it could not be identified. Resolved by probing every
+     * public no-arg int method on stone / ender pearl / diamond pickaxe stacks for 64 / 16 / 1.
+     */
+    public static int getMaxStackSize(Object stack) {
+        try {
+            if (!maxStackSizeResolved) {
+                maxStackSizeResolved = true;
+                Object[] probes = { makeItemStack(1, 0, 1), makeItemStack(368, 0, 1), makeItemStack(278, 0, 1) };
+                int[] expected = { 64, 16, 1 };
+                Class<?> cls = getItemStackClass();
+                if (cls != null && probes[0] != null && probes[1] != null && probes[2] != null) {
+                    for (Method m : cls.getMethods()) {
+                        if (m.getParameterTypes().length != 0 || m.getReturnType() != int.class
+                                || m.getDeclaringClass() != cls) continue;
+                        boolean all = true;
+                        for (int i = 0; i < probes.length && all; i++) {
+                            try { all = ((Integer) m.invoke(probes[i])) == expected[i]; }
+                            catch (Exception ignored) { all = false; }
+                        }
+                        if (all) { maxStackSizeInvoker = Invokers.bind(Invokers.IntNoArg.class, m); break; }
+                    }
+                }
+                if (maxStackSizeInvoker == null) OvmLog.warn("ItemStack.getMaxStackSize not found");
+            }
+            return maxStackSizeInvoker != null ? maxStackSizeInvoker.call(stack) : 0;
+        } catch (Exception e) { return 0; }
+    }
+
+    private static volatile Field[] stackObjectFields;
+
+    /**
+     * True if the stack carries no object state (NBT tag, item frame), like a fresh block drop;
+     * only such stacks are topped up with drops.
+     */
+    public static boolean isPlainStack(Object stack) {
+        try {
+            if (stackObjectFields == null) {
+                java.util.ArrayList<Field> fields = new java.util.ArrayList<Field>();
+                for (Field f : stack.getClass().getDeclaredFields()) {
+                    if (f.getType().isPrimitive() || java.lang.reflect.Modifier.isStatic(f.getModifiers())) continue;
+                    f.setAccessible(true);
+                    fields.add(f);
+                }
+                stackObjectFields = fields.toArray(new Field[fields.size()]);
+            }
+            for (Field f : stackObjectFields)
+                if (f.get(stack) != null) return false;
+            return true;
+        } catch (Exception e) { return false; }
+    }
+
+    private static volatile Field stackTagField;
+    private static volatile boolean stackTagResolved;
+
+    /**
+     * ItemStack.stackTagCompound, or null if the stack has none. The tag is the object field
+     * whose type declares a Map (NBTTagCompound.tagMap); the item frame field's type does not.
+     */
+    public static Object getStackTag(Object stack) {
+        try {
+            if (!stackTagResolved) {
+                for (Field f : stack.getClass().getDeclaredFields()) {
+                    if (f.getType().isPrimitive() || java.lang.reflect.Modifier.isStatic(f.getModifiers())) continue;
+                    for (Field d : f.getType().getDeclaredFields()) {
+                        if (Map.class.isAssignableFrom(d.getType())) { stackTagField = f; break; }
+                    }
+                    if (stackTagField != null) { stackTagField.setAccessible(true); break; }
+                }
+                if (stackTagField == null) OvmLog.warn("ItemStack tag field not found");
+                stackTagResolved = true;
+            }
+            return stackTagField != null ? stackTagField.get(stack) : null;
+        } catch (Exception e) { return null; }
+    }
+
+    private static volatile Invokers.ObjNoArg copyStackInvoker;
+    private static volatile boolean copyStackResolved;
+
+    /**
+     * ItemStack.copy() (tag included), or null if unresolved: the no-arg method ItemStack
+     * declares returning ItemStack that gives a different stack of the same size.
+     */
+    public static Object copyStack(Object stack) {
+        try {
+            if (!copyStackResolved) {
+                copyStackResolved = true;
+                Class<?> cls = getItemStackClass();
+                Object probe = makeItemStack(1, 0, 3);
+                if (cls != null && probe != null) {
+                    for (Method m : cls.getDeclaredMethods()) {
+                        if (m.getParameterTypes().length != 0 || m.getReturnType() != cls
+                                || !java.lang.reflect.Modifier.isPublic(m.getModifiers())
+                                || java.lang.reflect.Modifier.isStatic(m.getModifiers())) continue;
+                        Object copy;
+                        try { copy = m.invoke(probe); } catch (Exception ignored) { continue; }
+                        if (copy != null && copy != probe && getStackSize(copy) == 3 && getStackItemId(copy) == 1) {
+                            copyStackInvoker = Invokers.bind(Invokers.ObjNoArg.class, m);
+                            break;
+                        }
+                    }
+                }
+                if (copyStackInvoker == null) OvmLog.warn("ItemStack.copy not found");
+            }
+            return copyStackInvoker != null ? copyStackInvoker.call(stack) : null;
+        } catch (Exception e) { return null; }
+    }
+
     public static int getStackSize(Object stack) {
         Field[] f = resolveStackFields(stack);
         try { return f[1] != null ? f[1].getInt(stack) : 0; } catch (Exception e) { return 0; }
@@ -275,30 +875,331 @@ public class McAccessor {
         try { return f[2] != null ? f[2].getInt(stack) : 0; } catch (Exception e) { return 0; }
     }
 
+    // -----------------------------------------------------------------------
+    // Tool wear: max damage, enchantment levels, creative mode
+    // -----------------------------------------------------------------------
+
+    private static volatile Invokers.IntNoArg maxDamageInvoker;
+    private static volatile boolean maxDamageResolved;
+
+    /**
+     * ItemStack.getMaxDamage(), or 0 if it could not be identified. Resolved like
+     * getMaxStackSize, on diamond pickaxe / iron pickaxe / stone stacks for 1561 / 250 / 0.
+     */
+    public static int getMaxDamage(Object stack) {
+        try {
+            if (!maxDamageResolved) {
+                maxDamageResolved = true;
+                Object[] probes = { makeItemStack(278, 0, 1), makeItemStack(257, 0, 1), makeItemStack(1, 0, 1) };
+                int[] expected = { 1561, 250, 0 };
+                Class<?> cls = getItemStackClass();
+                if (cls != null && probes[0] != null && probes[1] != null && probes[2] != null) {
+                    for (Method m : cls.getMethods()) {
+                        if (m.getParameterTypes().length != 0 || m.getReturnType() != int.class
+                                || m.getDeclaringClass() != cls) continue;
+                        boolean all = true;
+                        for (int i = 0; i < probes.length && all; i++) {
+                            try { all = ((Integer) m.invoke(probes[i])) == expected[i]; }
+                            catch (Exception ignored) { all = false; }
+                        }
+                        if (all) { maxDamageInvoker = Invokers.bind(Invokers.IntNoArg.class, m); break; }
+                    }
+                }
+                if (maxDamageInvoker == null) OvmLog.warn("ItemStack.getMaxDamage not found");
+            }
+            return maxDamageInvoker != null ? maxDamageInvoker.call(stack) : 0;
+        } catch (Exception e) { return 0; }
+    }
+
+    public static void setStackDamage(Object stack, int damage) {
+        Field[] f = resolveStackFields(stack);
+        try { if (f[2] != null) f[2].setInt(stack, damage); } catch (Exception ignored) {}
+    }
+
+    // (class name + wanted type) → first instance field of that type, for the NBT walk below
+    private static final Map<String, Object> shapeFieldCache = new ConcurrentHashMap<String, Object>();
+    private static final Object NO_FIELD = new Object();
+
+    /** First non-static field of obj's class hierarchy whose type is type (or a subtype), or null. */
+    private static Object shapeField(Object obj, Class<?> type) {
+        if (obj == null) return null;
+        String key = obj.getClass().getName() + "|" + type.getName();
+        Object f = shapeFieldCache.get(key);
+        if (f == null) {
+            f = NO_FIELD;
+            for (Class<?> c = obj.getClass(); c != null && c != Object.class && f == NO_FIELD; c = c.getSuperclass()) {
+                for (Field d : c.getDeclaredFields()) {
+                    if (java.lang.reflect.Modifier.isStatic(d.getModifiers())) continue;
+                    if (type.isPrimitive() ? d.getType() == type : type.isAssignableFrom(d.getType())) {
+                        d.setAccessible(true);
+                        f = d;
+                        break;
+                    }
+                }
+            }
+            shapeFieldCache.put(key, f);
+        }
+        if (f == NO_FIELD) return null;
+        try { return ((Field) f).get(obj); } catch (Exception e) { return null; }
+    }
+
+    /** NBTTagCompound child by name: its tag map (the compound's only Map field) looked up. */
+    private static Object nbtTag(Object compound, String name) {
+        Object map = shapeField(compound, Map.class);
+        return map instanceof Map ? ((Map<?, ?>) map).get(name) : null;
+    }
+
+    /**
+     * Level of enchantment id on the stack, 0 if none. Read from the stack's "ench" tag list
+     * ({ id: short, lvl: short } compounds) by field shape, as EnchantmentHelper.getEnchantmentLevel
+     * does by name: the stack's tag is getStackTag, a list its List field, a short tag its short field.
+     */
+    public static int getEnchantmentLevel(Object stack, int id) {
+        try {
+            Object list = shapeField(nbtTag(getStackTag(stack), "ench"), List.class);
+            if (!(list instanceof List)) return 0;
+            for (Object e : (List<?>) list) {
+                Object eid = shapeField(nbtTag(e, "id"), short.class);
+                if (eid instanceof Short && (Short) eid == id) {
+                    Object lvl = shapeField(nbtTag(e, "lvl"), short.class);
+                    return lvl instanceof Short ? (Short) lvl : 0;
+                }
+            }
+            return 0;
+        } catch (Exception e) { return 0; }
+    }
+
+    private static volatile Field capabilitiesField;
+    private static volatile boolean capabilitiesResolved;
+
+    /**
+     * PlayerCapabilities.isCreativeMode. The capabilities object is the player field whose type
+     * declares only booleans and floats (5 and 2 of them); isCreativeMode is its fourth flag ("d").
+     */
+    public static boolean isCreative(Object player) {
+        try {
+            if (!capabilitiesResolved) {
+                for (Class<?> c = player.getClass(); c != null && c != Object.class && capabilitiesField == null;
+                     c = c.getSuperclass()) {
+                    for (Field f : c.getDeclaredFields()) {
+                        if (f.getName().equals("capabilities") || isCapabilitiesShape(f.getType())) {
+                            f.setAccessible(true);
+                            capabilitiesField = f;
+                            break;
+                        }
+                    }
+                }
+                if (capabilitiesField == null) OvmLog.warn("EntityPlayer.capabilities not found");
+                capabilitiesResolved = true;
+            }
+            Object caps = capabilitiesField != null ? capabilitiesField.get(player) : null;
+            return Reflect.getField(caps, boolean.class, "isCreativeMode", "d");
+        } catch (Exception e) { return false; }
+    }
+
+    private static boolean isCapabilitiesShape(Class<?> cls) {
+        if (cls.isPrimitive() || cls.isArray() || cls.getName().startsWith("java.")) return false;
+        int booleans = 0, floats = 0;
+        for (Field f : cls.getDeclaredFields()) {
+            if (java.lang.reflect.Modifier.isStatic(f.getModifiers())) continue;
+            if (f.getType() == boolean.class) booleans++;
+            else if (f.getType() == float.class) floats++;
+            else return false;
+        }
+        return booleans == 5 && floats == 2;
+    }
+
+    private static volatile Field usernameField;
+    private static volatile boolean usernameResolved;
+
+    /**
+     * EntityPlayer.username, or null. Resolved by name, else as the only String field declared
+     * by the class that declares inventory ("bJ"), i.e. EntityPlayer itself (EntityPlayerMP
+     * declares its own String, the language).
+     */
+    public static String getUsername(Object player) {
+        try {
+            if (!usernameResolved) {
+                Field found = null;
+                try {
+                    found = Reflect.findField(player.getClass(), "username");
+                    if (found.getType() != String.class) found = null;
+                } catch (NoSuchFieldException ignored) {}
+                if (found == null) {
+                    Class<?> owner = null;
+                    for (String n : new String[]{ "inventory", "bJ" }) {
+                        try { owner = Reflect.findField(player.getClass(), n).getDeclaringClass(); break; }
+                        catch (NoSuchFieldException ignored) {}
+                    }
+                    int strings = 0;
+                    if (owner != null) {
+                        for (Field f : owner.getDeclaredFields()) {
+                            if (f.getType() == String.class && !java.lang.reflect.Modifier.isStatic(f.getModifiers())) {
+                                found = f;
+                                strings++;
+                            }
+                        }
+                    }
+                    if (strings != 1) found = null;
+                }
+                if (found != null) found.setAccessible(true);
+                else OvmLog.warn("EntityPlayer.username not found");
+                usernameField = found;
+                usernameResolved = true;
+            }
+            return usernameField != null ? (String) usernameField.get(player) : null;
+        } catch (Exception e) { return null; }
+    }
+
     // -----------------------------------------------------------------------
     // Item spawn
     // -----------------------------------------------------------------------
 
-    private static Constructor<?> entityItemCtor;
-    private static Method spawnEntityMethod;
+    private static volatile Class<?> entityItemClass;
+    private static volatile Invokers.ObjNoArg entityItemGetStack;
+    private static volatile Field entityItemStackField;
 
-    public static void spawnItem(Object world, Object player, Object stack) {
+    /** The EntityItem class, or null if none of the known names resolve. */
+    public static Class<?> getEntityItemClass() {
+        if (entityItemClass == null) {
+            for (String cname : new String[]{ "net.minecraft.entity.item.EntityItem", "px" }) {
+                try { entityItemClass = Class.forName(cname); break; }
+                catch (Exception ignored) {}
+            }
+        }
+        return entityItemClass;
+    }
+
+    public static boolean isEntityItem(Object entity) {
+        Class<?> cls = getEntityItemClass();
+        return cls != null && cls.isInstance(entity);
+    }
+
+    /**
+     * The ItemStack carried by an EntityItem: EntityItem.getEntityItem(), the only no-arg method
+     * it declares returning ItemStack; older layouts keep it in an ItemStack field.
+     */
+    public static Object getEntityItemStack(Object entity) {
+        try {
+            if (entityItemGetStack == null && entityItemStackField == null) {
+                Class<?> stackCls = getItemStackClass();
+                Class<?> eiCls = getEntityItemClass();
+                if (stackCls == null || eiCls == null) return null;
+                for (Method m : eiCls.getDeclaredMethods()) {
+                    if (m.getParameterTypes().length == 0 && m.getReturnType() == stackCls
+                            && java.lang.reflect.Modifier.isPublic(m.getModifiers())) {
+                        entityItemGetStack = Invokers.bind(Invokers.ObjNoArg.class, m); break;
+                    }
+                }
+                if (entityItemGetStack == null) {
+                    for (Field f : eiCls.getDeclaredFields()) {
+                        if (f.getType() == stackCls) { f.setAccessible(true); entityItemStackField = f; break; }
+                    }
+                }
+                if (entityItemGetStack == null && entityItemStackField == null) return null;
+            }
+            return entityItemGetStack != null ? entityItemGetStack.call(entity) : entityItemStackField.get(entity);
+        } catch (Exception e) { return null; }
+    }
+
+    private static volatile Method entityItemSetStack;
+    private static volatile boolean entityItemSetStackResolved;
+
+    /**
+     * EntityItem.setEntityItemStack(stack): the only void method EntityItem declares taking an
+     * ItemStack. It stores the stack in the DataWatcher, which resends it to clients when it is
+     * a different object, so pass a new stack rather than a changed one. False if unresolved.
+     */
+    public static boolean setEntityItemStack(Object entity, Object stack) {
+        try {
+            if (!entityItemSetStackResolved) {
+                entityItemSetStackResolved = true;
+                Class<?> stackCls = getItemStackClass();
+                Class<?> eiCls = getEntityItemClass();
+                if (stackCls != null && eiCls != null) {
+                    for (Method m : eiCls.getDeclaredMethods()) {
+                        Class<?>[] p = m.getParameterTypes();
+                        if (p.length == 1 && p[0] == stackCls && m.getReturnType() == void.class
+                                && java.lang.reflect.Modifier.isPublic(m.getModifiers())) {
+                            entityItemSetStack = m; break;
+                        }
+                    }
+                }
+                if (entityItemSetStack == null)
+                    OvmLog.warn("EntityItem.setEntityItemStack not found; overflow is spawned as new items");
+            }
+            if (entityItemSetStack == null) return false;
+            entityItemSetStack.invoke(entity, stack);
+            return true;
+        } catch (Exception e) {
+            OvmLog.error("setEntityItemStack error: {}", e);
+            return false;
+        }
+    }
+
+    private static volatile Method aabbFactory;
+    private static volatile Method getEntitiesMethod;
+
+    /** EntityItems whose bounding boxes intersect the given box. Empty list if unresolved. */
+    public static List<?> getEntityItemsIn(Object world, double minX, double minY, double minZ,
+                                           double maxX, double maxY, double maxZ) {
         try {
-            double px = Reflect.getField(player, double.class, "posX", "bT");
-            double py = Reflect.getField(player, double.class, "posY", "bU");
-            double pz = Reflect.getField(player, double.class, "posZ", "bV");
+            Class<?> eiClass = getEntityItemClass();
+            if (eiClass == null) return Collections.emptyList();
 
-            if (entityItemCtor == null) {
-                Class<?> eiClass = null;
-                for (String cname : new String[]{ "net.minecraft.entity.item.EntityItem", "px" }) {
-                    try { eiClass = Class.forName(cname); break; }
+            // AxisAlignedBB.getBoundingBox / obf "a" (6 doubles → AABB)
+            if (aabbFactory == null) {
+                Class<?> aabbClass = null;
+                for (String cname : new String[]{ "net.minecraft.util.AxisAlignedBB", "aoe" }) {
+                    try { aabbClass = Class.forName(cname); break; }
                     catch (Exception ignored) {}
                 }
+                if (aabbClass == null) return Collections.emptyList();
+                for (String n : new String[]{ "getBoundingBox", "a" }) {
+                    try {
+                        aabbFactory = aabbClass.getMethod(n, double.class, double.class, double.class,
+                                                             double.class, double.class, double.class);
+                        break;
+                    } catch (Exception ignored) {}
+                }
+                if (aabbFactory == null) return Collections.emptyList();
+            }
+            Object aabb = aabbFactory.invoke(null, minX, minY, minZ, maxX, maxY, maxZ);
+            if (aabb == null) return Collections.emptyList();
+
+            // World.getEntitiesWithinAABB(Class, AABB) / obf "a"
+            if (getEntitiesMethod == null) {
+                for (String n : new String[]{ "getEntitiesWithinAABB", "a" }) {
+                    try {
+                        getEntitiesMethod = world.getClass().getMethod(n, Class.class, aabbFactory.getReturnType());
+                        break;
+                    } catch (Exception ignored) {}
+                }
+                if (getEntitiesMethod == null) return Collections.emptyList();
+            }
+            List<?> entities = (List<?>) getEntitiesMethod.invoke(world, eiClass, aabb);
+            return entities != null ? entities : Collections.emptyList();
+        } catch (Exception e) {
+            OvmLog.error("getEntityItemsIn error: {}", e);
+            return Collections.emptyList();
+        }
+    }
+
+    private static volatile Constructor<?> entityItemCtor;
+    private static volatile Method spawnEntityMethod;
+
+    public static void spawnItem(Object world, Object player, Object stack) {
+        try {
+            double px = getPosX(player), py = getPosY(player), pz = getPosZ(player);
+
+            if (entityItemCtor == null) {
+                Class<?> eiClass = getEntityItemClass();
                 if (eiClass == null) return;
                 Class<?> worldClass = world.getClass();
                 while (worldClass != null) {
                     try {
-                        entityItemCtor = eiClass.getConstructor(worldClass, double.class, double.class, double.class, stack.getClass());
+                        entityItemCtor = eiClass.getConstructor(worldClass, double.class, double.class, double.class,
+                                                                stack.getClass());
                         break;
                     } catch (Exception ignored) { worldClass = worldClass.getSuperclass(); }
                 }
@@ -318,7 +1219,7 @@ public class McAccessor {
             }
             if (spawnEntityMethod != null) spawnEntityMethod.invoke(world, ei);
         } catch (Exception e) {
-            System.out.println("[OVM] spawnItem error: " + e);
+            OvmLog.error("spawnItem error: {}", e);
         }
     }
 
@@ -326,7 +1227,7 @@ public class McAccessor {
     // Inventory add
     // -----------------------------------------------------------------------
 
-    private static Method addToInventoryMethod;
+    private static volatile Method addToInventoryMethod;
 
     /** Add stack to player inventory. Returns leftover count (0 if fully added). */
     public static int addToInventory(Object player, Object stack) {
@@ -358,7 +1259,7 @@ public class McAccessor {
             int remaining = getStackSize(stack);
             return (added && remaining <= 0) ? 0 : remaining;
         } catch (Exception e) {
-            System.out.println("[OVM] addToInventory error: " + e);
+            OvmLog.error("addToInventory error: {}", e);
             return getStackSize(stack);
         }
     }
@@ -2,6 +2,7 @@ package com.ovm;
 
 import cpw.mods.fml.relauncher.Side;
 import cpw.mods.fml.relauncher.SideOnly;
+import net.minecraftforge.client.event.RenderWorldLastEvent;
 import net.minecraftforge.event.ForgeSubscribe;
 import net.minecraftforge.event.entity.player.PlayerInteractEvent;
 import org.lwjgl.input.Keyboard;
@@ -19,6 +20,9 @@ import java.lang.reflect.Method;
  * For insta-break tools (shears on leaves), the block is already air when the
  * interact event fires — onTick pre-caches the block ID at the crosshair position
  * each tick so we have it available even after instant destruction.
+ *
+ * Preview: while the key is held and the crosshair is on a block, VeinPreview outlines the
+ * vein; its search and drawing run from onRenderWorldLast.
  */
 @SideOnly(Side.CLIENT)
 public class OvmClientHandler {
@@ -30,7 +34,7 @@ public class OvmClientHandler {
     static int pendingZ = Integer.MIN_VALUE;
     static int pendingBlockId = 0;
 
-    // Block ID at crosshair, captured each tick before any break event.
+    // Block at crosshair (id | meta << 12, see blockAt), captured each tick before any break event.
     // Used as fallback when getBlockId returns 0 at interact time (insta-break).
     private static int crosshairX, crosshairY, crosshairZ;
     private static int crosshairBlockId = 0;
@@ -40,7 +44,7 @@ public class OvmClientHandler {
         if (event.action != PlayerInteractEvent.Action.LEFT_CLICK_BLOCK) return;
 
         boolean active = activationKeyHeld;
-        System.out.println("[OVM] client: interact active=" + active + " at (" + event.x + "," + event.y + "," + event.z + ")");
+        OvmLog.debug("client: interact active={} at ({},{},{})", active, event.x, event.y, event.z);
         if (!active) {
             pendingX = Integer.MIN_VALUE;
             return;
@@ -49,7 +53,7 @@ public class OvmClientHandler {
         if (event.x != pendingX || event.y != pendingY || event.z != pendingZ) {
             Object mc = McAccessor.getMc();
             Object world = mc != null ? Reflect.getField(mc, Object.class, "theWorld", "e") : null;
-            int bid = world != null ? McAccessor.getBlockId(world, event.x, event.y, event.z) : 0;
+            int bid = world != null ? blockAt(world, event.x, event.y, event.z) : 0;
             // Insta-break: block already air, use crosshair cache from last tick
             if (bid == 0 && event.x == crosshairX && event.y == crosshairY && event.z == crosshairZ)
                 bid = crosshairBlockId;
@@ -57,25 +61,32 @@ public class OvmClientHandler {
             pendingY = event.y;
             pendingZ = event.z;
             pendingBlockId = bid;
-            System.out.println("[OVM] client: pending set id=" + bid + " at (" + event.x + "," + event.y + "," + event.z + ")");
+            OvmLog.debug("client: pending set id={} at ({},{},{})", bid, event.x, event.y, event.z);
         }
     }
 
+    @ForgeSubscribe
+    public void onRenderWorldLast(RenderWorldLastEvent event) {
+        VeinPreview.render(event.partialTicks);
+    }
+
     /** Called each CLIENT tick from ClientTickHandler (game thread). */
     static void onTick() {
         boolean keyNow = isActivationKeyDown();
         if (keyNow != activationKeyHeld) {
             activationKeyHeld = keyNow;
-            System.out.println("[OVM] activationKey " + (keyNow ? "DOWN" : "UP"));
+            OvmLog.debug("activationKey {}", keyNow ? "DOWN" : "UP");
         }
 
         // Cache block at crosshair for insta-break detection
-        updateCrosshair();
+        boolean onBlock = updateCrosshair();
+        if (activationKeyHeld && onBlock) VeinPreview.show(crosshairX, crosshairY, crosshairZ, crosshairBlockId);
+        else VeinPreview.hide();
 
         if (pendingX == Integer.MIN_VALUE) return;
 
         if (!activationKeyHeld) {
-            System.out.println("[OVM] client: pending cancelled (key released)");
+            OvmLog.debug("client: pending cancelled (key released)");
             pendingX = Integer.MIN_VALUE;
             return;
         }
@@ -86,14 +97,14 @@ public class OvmClientHandler {
         Object world = Reflect.getField(mc, Object.class, "theWorld", "e");
         if (world == null) return;
 
-        int blockId = McAccessor.getBlockId(world, pendingX, pendingY, pendingZ);
+        int blockId = blockAt(world, pendingX, pendingY, pendingZ);
         if (blockId != 0) {
             pendingBlockId = blockId;
         } else if (pendingBlockId != 0) {
             int x = pendingX, y = pendingY, z = pendingZ, bid = pendingBlockId;
             pendingX = Integer.MIN_VALUE;
             pendingBlockId = 0;
-            System.out.println("[OVM] client: block broke id=" + bid + ", sending packet (" + x + "," + y + "," + z + ")");
+            OvmLog.debug("client: block broke id={}, sending packet ({},{},{})", bid, x, y, z);
             sendPacket(x, y, z, bid);
         }
         else { pendingX = Integer.MIN_VALUE; }
@@ -103,30 +114,42 @@ public class OvmClientHandler {
      * Cache the block ID at the player's crosshair (objectMouseOver).
      * This runs every tick before interact events, so for insta-break tools
      * we have the block ID from the previous tick even if the block is already gone.
+     * Returns true if the crosshair is on a block this tick.
      */
-    private static void updateCrosshair() {
+    private static boolean updateCrosshair() {
         Object mc = McAccessor.getMc();
-        if (mc == null) return;
+        if (mc == null) return false;
         // Minecraft.objectMouseOver → MovingObjectPosition (MCP field_71476_x) / obf "x"
         Object mop = Reflect.getField(mc, Object.class, "objectMouseOver", "x");
-        if (mop == null) return;
+        if (mop == null) return false;
         // MovingObjectPosition.typeOfHit → EnumMovingObjectType, 0=TILE
         Object typeOfHit = Reflect.getField(mop, Object.class, "typeOfHit", "a");
-        if (typeOfHit == null) return;
+        if (typeOfHit == null) return false;
         // Check it's a block hit (TILE), not entity. EnumMovingObjectType.TILE.ordinal() == 0
-        if (typeOfHit instanceof Enum && ((Enum<?>) typeOfHit).ordinal() != 0) return;
+        if (typeOfHit instanceof Enum && ((Enum<?>) typeOfHit).ordinal() != 0) return false;
         int bx = Reflect.getField(mop, int.class, "blockX", "b");
         int by = Reflect.getField(mop, int.class, "blockY", "c");
         int bz = Reflect.getField(mop, int.class, "blockZ", "d");
         Object world = Reflect.getField(mc, Object.class, "theWorld", "e");
-        if (world == null) return;
-        int bid = McAccessor.getBlockId(world, bx, by, bz);
+        if (world == null) return false;
+        int bid = blockAt(world, bx, by, bz);
         if (bid != 0) {
             crosshairX = bx;
             crosshairY = by;
             crosshairZ = bz;
             crosshairBlockId = bid;
+            return true;
         }
+        return false;
+    }
+
+    /**
+     * Block at a position as id | meta << 12, 0 for air. The metadata travels with the ID so the
+     * server can pick the block group when groups are split by metadata (BlockGroups.key).
+     */
+    private static int blockAt(Object world, int x, int y, int z) {
+        int id = McAccessor.getBlockId(world, x, y, z);
+        return id != 0 ? id | (McAccessor.getBlockMeta(world, x, y, z) & 15) << 12 : 0;
     }
 
     private static boolean isActivationKeyDown() {
@@ -138,9 +161,8 @@ public class OvmClientHandler {
 
     /** Called from OvmMod.initClient() via reflection. */
     static void registerActivationKey(int keyCode) {
-        System.out.println("[OVM] Activation key configured: keycode=" + keyCode
-            + " name=" + Keyboard.getKeyName(keyCode)
-            + " (macOS grave workaround: " + (keyCode == 41) + ")");
+        OvmLog.info("Activation key configured: keycode={} name={}", keyCode,
+            Keyboard.getKeyName(keyCode) + " (macOS grave workaround: " + (keyCode == 41) + ")");
     }
 
     private static void sendPacket(int x, int y, int z, int blockId) {
@@ -157,9 +179,9 @@ public class OvmClientHandler {
             Object packet = getPacket.invoke(null, OvmMod.CHANNEL, data);
             Method send = pd.getMethod("sendPacketToServer", packet.getClass().getSuperclass());
             send.invoke(null, packet);
-            System.out.println("[OVM] Sent veinmine packet x=" + x + " y=" + y + " z=" + z);
+            OvmLog.debug("Sent veinmine packet x={} y={} z={}", x, y, z);
         } catch (Exception e) {
-            System.out.println("[OVM] Failed to send packet: " + e);
+            OvmLog.error("Failed to send packet: {}", e);
         }
     }
 }
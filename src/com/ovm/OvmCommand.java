@@ -0,0 +1,128 @@
+package com.ovm;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+
+/**
+ * The /ovm server command: "/ovm stats" prints OvmStats, "/ovm stats reset" (ops) clears it.
+ *
+ * ICommand and ICommandSender are obfuscated Minecraft interfaces, so the command is a
+ * dynamic proxy (as in OvmPacketHandler) registered through
+ * FMLServerStartingEvent.registerServerCommand, and its methods are told apart by signature:
+ *   String ()                    getCommandName
+ *   String (sender)              getCommandUsage
+ *   List ()                      getCommandAliases
+ *   void (sender, String[])      processCommand
+ *   boolean (sender)             canCommandSenderUseCommand
+ *   List (sender, String[])      addTabCompletionOptions
+ *   boolean (int)                isUsernameIndex
+ *   int (Object)                 compareTo
+ * On the sender, the only void (String) method is sendChatToPlayer and the only
+ * boolean (int, String) method is canCommandSenderUseCommand(permissionLevel, command).
+ */
+public class OvmCommand {
+
+    static final String NAME = "ovm";
+    private static final String USAGE = "/ovm stats [reset]";
+    private static final int RESET_PERMISSION_LEVEL = 2;
+
+    /** Register the command from a FMLServerStartingEvent. */
+    static void register(Object startingEvent) {
+        try {
+            Method register = null;
+            for (Method m : startingEvent.getClass().getMethods())
+                if (m.getName().equals("registerServerCommand") && m.getParameterTypes().length == 1) register = m;
+            if (register == null) {
+                OvmLog.warn("registerServerCommand not found; /ovm unavailable");
+                return;
+            }
+            Class<?> iface = register.getParameterTypes()[0];
+            InvocationHandler handler = new InvocationHandler() {
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    return dispatch(proxy, method, args);
+                }
+            };
+            Object command = Proxy.newProxyInstance(iface.getClassLoader(), new Class<?>[]{ iface }, handler);
+            register.invoke(startingEvent, command);
+            OvmLog.info("/ovm command registered");
+        } catch (Exception e) {
+            OvmLog.error("command registration error: {}", e);
+        }
+    }
+
+    private static Object dispatch(Object proxy, Method method, Object[] args) {
+        Class<?>[] p = method.getParameterTypes();
+        Class<?> r = method.getReturnType();
+        if (method.getDeclaringClass() == Object.class) {
+            if (method.getName().equals("equals")) return proxy == args[0];
+            if (method.getName().equals("hashCode")) return System.identityHashCode(proxy);
+            return "OvmCommand";
+        }
+        if (r == String.class) return p.length == 0 ? NAME : USAGE;
+        if (r == int.class && p.length == 1) return compareName(args[0]);
+        if (r == boolean.class) return p.length == 1 && !p[0].isPrimitive(); // may use: yes; username index: no
+        if (r == void.class && p.length == 2 && p[1] == String[].class) {
+            process(args[0], (String[]) args[1]);
+            return null;
+        }
+        if (java.util.List.class.isAssignableFrom(r)) return p.length == 0 ? Collections.emptyList() : null;
+        return r.isPrimitive() ? Reflect.defaultValue(r) : null;
+    }
+
+    private static void process(Object sender, String[] args) {
+        if (args.length == 0 || !args[0].equals("stats")) {
+            send(sender, "Usage: " + USAGE);
+            return;
+        }
+        if (args.length > 1 && args[1].equals("reset")) {
+            if (!mayReset(sender)) {
+                send(sender, "You do not have permission to reset OVM stats.");
+                return;
+            }
+            new OvmStats().reset();
+            send(sender, "OVM stats reset.");
+            return;
+        }
+        for (String line : OvmStats.report()) send(sender, line);
+    }
+
+    /** Commands sort by name; another command's name comes from its no-arg String method. */
+    private static int compareName(Object other) {
+        if (other == null) return 1;
+        for (Method m : other.getClass().getMethods()) {
+            if (m.getReturnType() == String.class && m.getParameterTypes().length == 0
+                    && m.getDeclaringClass() != Object.class) {
+                try { return NAME.compareTo((String) m.invoke(other)); }
+                catch (Exception ignored) {}
+            }
+        }
+        return 0;
+    }
+
+    private static void send(Object sender, String line) {
+        Method m = senderMethod(sender, void.class, String.class);
+        try { if (m != null) m.invoke(sender, line); }
+        catch (Exception ignored) {}
+    }
+
+    private static boolean mayReset(Object sender) {
+        Method m = senderMethod(sender, boolean.class, int.class, String.class);
+        try { return m != null && (Boolean) m.invoke(sender, RESET_PERMISSION_LEVEL, NAME); }
+        catch (Exception e) { return false; }
+    }
+
+    /** The sender's ICommandSender method with the given signature (interface methods only). */
+    private static Method senderMethod(Object sender, Class<?> ret, Class<?>... params) {
+        for (Class<?> c = sender.getClass(); c != null; c = c.getSuperclass()) {
+            for (Class<?> iface : c.getInterfaces()) {
+                for (Method m : iface.getMethods()) {
+                    if (m.getReturnType() == ret && java.util.Arrays.equals(m.getParameterTypes(), params)) return m;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -16,6 +16,33 @@ public class OvmConfig {
     public static boolean dropsToInventory = true;
     /** LWJGL key code for the veinmine activation key. Default 41 = KEY_GRAVE (on macOS reports as 0, handled automatically) */
     public static int activationKey = 41;
+    /** Server time per tick spent advancing vein jobs, in microseconds (at least one batch always runs). */
+    public static int tickBudgetMicros = 5000;
+    public static int blocksPerBatch   = 16;
+    public static int blocksPerSecond     = 512;
+    public static int maxPendingPerPlayer = 2;
+    public static int maxActiveJobs       = 32;
+    public static int searchThreads       = 1;
+    public static int veinCacheEntries    = 64;
+    public static int veinCacheKiB        = 1024;
+    /** Searches go on past the player's budget up to this many blocks, so the rest of the vein is cached. */
+    public static int veinCacheSearch     = 1024;
+    /** Operations larger than this mine while they search, instead of searching first. */
+    public static int streamAbove         = 4096;
+    /** Memory cap per search for visited pages and the frontier, in KiB. */
+    public static int searchMemoryKiB     = 16384;
+    /** Farthest a request origin may be from the player's eyes, in blocks. */
+    public static int maxReachDistance    = 8;
+    /** Felling logs also removes the leaves left without a log, as one batch. */
+    public static boolean fellLeaves      = true;
+    /** Blocks mined as one vein: groups split by ';', entries "id", "id/meta" or "ore:name" split by ','. */
+    public static String blockGroups      = "73,74";
+    /** Each OreDictionary "ore*" name is also a group, so modded ores of one name form one vein. */
+    public static boolean oreDictionaryGroups = true;
+    /** Client frame time spent on the preview search, in microseconds (0 = no preview). */
+    public static int previewBudgetMicros = 1000;
+    /** Most verbose log level printed: error, warn, info or debug. */
+    public static String logLevel = "info";
 
     public static void load(File configDir) {
         Configuration cfg = new Configuration(new File(configDir, "ovm.cfg"));
@@ -50,6 +77,137 @@ public class OvmConfig {
                 "LWJGL key code for the veinmine activation key (default: 41 = grave/backtick `; macOS isKeyDown(0) workaround applied automatically)"
             ).getInt(41);
 
+            tickBudgetMicros = cfg.get(
+                Configuration.CATEGORY_GENERAL,
+                "tickBudgetMicros",
+                5000,
+                "Server time per tick spent mining queued veins, in microseconds (default: 5000 = 10% of a tick)"
+            ).getInt(5000);
+
+            blocksPerBatch = cfg.get(
+                Configuration.CATEGORY_GENERAL,
+                "blocksPerBatch",
+                16,
+                "Blocks mined per scheduling turn; players take turns batch by batch (default: 16)"
+            ).getInt(16);
+
+            blocksPerSecond = cfg.get(
+                Configuration.CATEGORY_GENERAL,
+                "blocksPerSecond",
+                512,
+                "Per-player veinmine rate: token bucket refill in blocks per second, burst max(this, maxBlocks)"
+                    + " (default: 512)"
+            ).getInt(512);
+
+            maxPendingPerPlayer = cfg.get(
+                Configuration.CATEGORY_GENERAL,
+                "maxPendingPerPlayer",
+                2,
+                "Veinmine operations a player may have queued or running; further requests are rejected (default: 2)"
+            ).getInt(2);
+
+            maxActiveJobs = cfg.get(
+                Configuration.CATEGORY_GENERAL,
+                "maxActiveJobs",
+                32,
+                "Veinmine operations queued or running server-wide; further requests are rejected (default: 32)"
+            ).getInt(32);
+
+            searchThreads = cfg.get(
+                Configuration.CATEGORY_GENERAL,
+                "searchThreads",
+                1,
+                "Worker threads for vein searches over copied chunk sections"
+                    + " (default: 1; 0 = search on the server thread)"
+            ).getInt(1);
+
+            veinCacheEntries = cfg.get(
+                Configuration.CATEGORY_GENERAL,
+                "veinCacheEntries",
+                64,
+                "Recently searched complete veins kept for reuse (default: 64; 0 = no cache)"
+            ).getInt(64);
+
+            veinCacheKiB = cfg.get(
+                Configuration.CATEGORY_GENERAL,
+                "veinCacheKiB",
+                1024,
+                "Memory cap for the vein cache in KiB, estimated (default: 1024)"
+            ).getInt(1024);
+
+            veinCacheSearch = cfg.get(
+                Configuration.CATEGORY_GENERAL,
+                "veinCacheSearch",
+                1024,
+                "Vein searches continue past the player's limit up to this many blocks, so the part of the vein"
+                    + " left unmined can be cached (default: 1024; 0 = search only what is mined)"
+            ).getInt(1024);
+
+            streamAbove = cfg.get(
+                Configuration.CATEGORY_GENERAL,
+                "streamAbove",
+                4096,
+                "With maxBlocks above this, the search runs on the server thread alongside mining and hands"
+                    + " blocks over batch by batch (default: 4096)"
+            ).getInt(4096);
+
+            searchMemoryKiB = cfg.get(
+                Configuration.CATEGORY_GENERAL,
+                "searchMemoryKiB",
+                16384,
+                "Memory cap per vein search for visited blocks and the frontier, in KiB; a search that"
+                    + " reaches it stops early (default: 16384)"
+            ).getInt(16384);
+
+            maxReachDistance = cfg.get(
+                Configuration.CATEGORY_GENERAL,
+                "maxReachDistance",
+                8,
+                "Requests whose origin is farther than this from the player's eyes (in blocks) are ignored"
+                    + " (default: 8; vanilla digging allows 6)"
+            ).getInt(8);
+
+            fellLeaves = cfg.get(
+                Configuration.CATEGORY_GENERAL,
+                "fellLeaves",
+                true,
+                "When logs are veinmined, remove the leaves left without a log at once, with their drops"
+                    + " added to the job's (default: true; false = leave them to decay)"
+            ).getBoolean(true);
+
+            blockGroups = cfg.get(
+                Configuration.CATEGORY_GENERAL,
+                "blockGroups",
+                "73,74",
+                "Blocks mined as one vein. Groups are separated by ';', entries by ','; an entry is a block"
+                    + " id, id/meta (only that metadata; the id's other metadata values are not part of the"
+                    + " group) or ore:name (an OreDictionary name) (default: 73,74 = redstone ore, lit and unlit)"
+            ).value;
+
+            oreDictionaryGroups = cfg.get(
+                Configuration.CATEGORY_GENERAL,
+                "oreDictionaryGroups",
+                true,
+                "Every OreDictionary name starting with 'ore' is also a group, so ores of the same name from"
+                    + " different mods are one vein (default: true)"
+            ).getBoolean(true);
+
+            previewBudgetMicros = cfg.get(
+                Configuration.CATEGORY_GENERAL,
+                "previewBudgetMicros",
+                1000,
+                "Client: frame time per frame spent finding the vein outlined while the activation key is"
+                    + " held, in microseconds (default: 1000; 0 = no preview)"
+            ).getInt(1000);
+
+            logLevel = cfg.get(
+                Configuration.CATEGORY_GENERAL,
+                "logLevel",
+                "info",
+                "Most verbose log level printed: error, warn, info or debug (default: info; debug traces every request)"
+            ).value;
+            OvmLog.setLevel(logLevel);
+
         } finally {
             cfg.save();
         }
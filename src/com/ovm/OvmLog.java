@@ -0,0 +1,217 @@
+package com.ovm;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Mod logging off the calling thread.
+ *
+ * Callers pass a message template with "{}" placeholders and its arguments; nothing is
+ * formatted or printed on the caller's thread. A disabled level returns before any
+ * allocation (primitive overloads avoid boxing and varargs arrays), so debug calls can stay
+ * in hot paths. Enabled messages go into a fixed-size lock-free ring (multi-producer: server,
+ * client and search threads) and a daemon thread formats and prints them. When the ring is
+ * full, messages are dropped and counted rather than blocking the game.
+ *
+ * An error logged with its Throwable also gets the stack trace, printed by the log thread
+ * under the message.
+ *
+ * Repeats of one template are limited to RATE_LIMIT per RATE_WINDOW_MS; the rest are counted
+ * and summarised once the window ends. Level from OvmConfig.logLevel (default info).
+ */
+public final class OvmLog {
+
+    public static final int ERROR = 0, WARN = 1, INFO = 2, DEBUG = 3;
+    private static final String[] PREFIX = { "[OVM] ERROR ", "[OVM] WARN ", "[OVM] ", "[OVM] " };
+
+    /** Most verbose level printed. */
+    public static volatile int level = INFO;
+
+    private static final int CAPACITY = 1024; // power of two
+    private static final int RATE_LIMIT = 20;
+    private static final long RATE_WINDOW_MS = 10000;
+    private static final long IDLE_PARK_NANOS = 20000000L;
+
+    private static final class Record {
+        final int level;
+        final String template;
+        final Object[] args;
+        final Throwable thrown;     // stack trace printed after the message, or null
+
+        Record(int level, String template, Object[] args, Throwable thrown) {
+            this.level = level;
+            this.template = template;
+            this.args = args;
+            this.thrown = thrown;
+        }
+    }
+
+    // Ring: producers claim a sequence number on tail, then publish the slot; the consumer
+    // takes slots in order from head, waiting for a claimed slot to be published.
+    private static final AtomicReferenceArray<Record> ring = new AtomicReferenceArray<Record>(CAPACITY);
+    private static final AtomicLong tail = new AtomicLong();
+    private static volatile long head;
+    private static final AtomicLong dropped = new AtomicLong();
+
+    private static final Object drainLock = new Object();
+
+    // Consumer state (guarded by drainLock): per-template count in the current rate-limit window
+    private static final Map<String, int[]> windowCounts = new HashMap<String, int[]>();
+    private static long windowStart = System.currentTimeMillis();
+
+    static {
+        Thread t = new Thread("OVM log") {
+            @Override
+            public void run() {
+                while (true) {
+                    if (drain() == 0) LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+            }
+        };
+        t.setDaemon(true);
+        t.start();
+        Runtime.getRuntime().addShutdownHook(new Thread("OVM log flush") {
+            @Override
+            public void run() {
+                drain();
+            }
+        });
+    }
+
+    private OvmLog() {}
+
+    /** Parse a config value ("error", "warn", "info", "debug"); unknown values keep info. */
+    public static void setLevel(String name) {
+        String n = name == null ? "" : name.trim().toLowerCase();
+        if (n.equals("error"))      level = ERROR;
+        else if (n.equals("warn"))  level = WARN;
+        else if (n.equals("debug")) level = DEBUG;
+        else                        level = INFO;
+    }
+
+    public static boolean isEnabled(int lvl) {
+        return lvl <= level;
+    }
+
+    public static boolean isDebug() {
+        return DEBUG <= level;
+    }
+
+    // -----------------------------------------------------------------------
+    // Entry points (level check first: disabled calls allocate nothing)
+    // -----------------------------------------------------------------------
+
+    public static void error(String msg)                 { if (ERROR <= level) submit(ERROR, msg, null); }
+    public static void error(String fmt, Object a)       { if (ERROR <= level) submit(ERROR, fmt, new Object[]{ a }); }
+    /** fmt's placeholder gets t; its stack trace follows the message. */
+    public static void error(String fmt, Throwable t) {
+        if (ERROR <= level) submit(ERROR, fmt, new Object[]{ t }, t);
+    }
+
+    public static void warn(String msg)                  { if (WARN <= level) submit(WARN, msg, null); }
+    public static void warn(String fmt, Object a)        { if (WARN <= level) submit(WARN, fmt, new Object[]{ a }); }
+
+    public static void info(String msg)                  { if (INFO <= level) submit(INFO, msg, null); }
+    public static void info(String fmt, Object a)        { if (INFO <= level) submit(INFO, fmt, new Object[]{ a }); }
+    public static void info(String fmt, Object a, Object b) {
+        if (INFO <= level) submit(INFO, fmt, new Object[]{ a, b });
+    }
+    public static void info(String fmt, long a, long b, long c) {
+        if (INFO <= level) submit(INFO, fmt, new Object[]{ a, b, c });
+    }
+
+    public static void debug(String msg)                 { if (DEBUG <= level) submit(DEBUG, msg, null); }
+    public static void debug(String fmt, Object a)       { if (DEBUG <= level) submit(DEBUG, fmt, new Object[]{ a }); }
+    public static void debug(String fmt, long a)         { if (DEBUG <= level) submit(DEBUG, fmt, new Object[]{ a }); }
+    public static void debug(String fmt, long a, long b) {
+        if (DEBUG <= level) submit(DEBUG, fmt, new Object[]{ a, b });
+    }
+    public static void debug(String fmt, long a, long b, Object c) {
+        if (DEBUG <= level) submit(DEBUG, fmt, new Object[]{ a, b, c });
+    }
+    public static void debug(String fmt, long a, long b, long c) {
+        if (DEBUG <= level) submit(DEBUG, fmt, new Object[]{ a, b, c });
+    }
+    public static void debug(String fmt, long a, long b, long c, long d) {
+        if (DEBUG <= level) submit(DEBUG, fmt, new Object[]{ a, b, c, d });
+    }
+    public static void debug(String fmt, boolean a, long b, long c, long d) {
+        if (DEBUG <= level) submit(DEBUG, fmt, new Object[]{ a, b, c, d });
+    }
+
+    // -----------------------------------------------------------------------
+    // Ring buffer
+    // -----------------------------------------------------------------------
+
+    private static void submit(int lvl, String template, Object[] args) {
+        submit(lvl, template, args, null);
+    }
+
+    private static void submit(int lvl, String template, Object[] args, Throwable thrown) {
+        Record r = new Record(lvl, template, args, thrown);
+        long seq;
+        do {
+            seq = tail.get();
+            if (seq - head >= CAPACITY) { dropped.incrementAndGet(); return; }
+        } while (!tail.compareAndSet(seq, seq + 1));
+        ring.lazySet((int) seq & (CAPACITY - 1), r);
+    }
+
+    /** Print everything published so far. Returns the number of records taken. */
+    private static int drain() {
+        synchronized (drainLock) {
+            int taken = 0;
+            long h = head;
+            while (h < tail.get()) {
+                int slot = (int) h & (CAPACITY - 1);
+                Record r = ring.get(slot);
+                if (r == null) break; // claimed, not yet published
+                ring.set(slot, null);
+                head = ++h;
+                taken++;
+                print(r);
+            }
+            long lost = dropped.getAndSet(0);
+            if (lost > 0) System.out.println("[OVM] WARN log buffer full, " + lost + " messages dropped");
+            rollWindow(System.currentTimeMillis());
+            return taken;
+        }
+    }
+
+    private static void print(Record r) {
+        int[] count = windowCounts.get(r.template);
+        if (count == null) windowCounts.put(r.template, count = new int[1]);
+        if (++count[0] > RATE_LIMIT) return;
+        System.out.println(PREFIX[r.level] + format(r.template, r.args));
+        if (r.thrown != null) r.thrown.printStackTrace(System.out);
+    }
+
+    /** End the rate-limit window: report suppressed repeats and start counting again. */
+    private static void rollWindow(long now) {
+        if (now - windowStart < RATE_WINDOW_MS) return;
+        windowStart = now;
+        for (Map.Entry<String, int[]> e : windowCounts.entrySet()) {
+            int suppressed = e.getValue()[0] - RATE_LIMIT;
+            if (suppressed > 0)
+                System.out.println("[OVM] suppressed " + suppressed + " repeats of \"" + e.getKey() + "\"");
+        }
+        windowCounts.clear();
+    }
+
+    static String format(String template, Object[] args) {
+        if (args == null) return template;
+        StringBuilder sb = new StringBuilder(template.length() + 16 * args.length);
+        int from = 0, arg = 0;
+        while (true) {
+            int at = template.indexOf("{}", from);
+            if (at < 0 || arg == args.length) break;
+            sb.append(template, from, at).append(args[arg++]);
+            from = at + 2;
+        }
+        sb.append(template, from, template.length());
+        return sb.toString();
+    }
+}
@@ -5,9 +5,13 @@ import cpw.mods.fml.common.Mod.Init;
 import cpw.mods.fml.common.Mod.Instance;
 import cpw.mods.fml.common.Mod.PostInit;
 import cpw.mods.fml.common.Mod.PreInit;
+import cpw.mods.fml.common.Mod.ServerStarting;
+import cpw.mods.fml.common.Mod.ServerStopping;
 import cpw.mods.fml.common.event.FMLInitializationEvent;
 import cpw.mods.fml.common.event.FMLPostInitializationEvent;
 import cpw.mods.fml.common.event.FMLPreInitializationEvent;
+import cpw.mods.fml.common.event.FMLServerStartingEvent;
+import cpw.mods.fml.common.event.FMLServerStoppingEvent;
 import cpw.mods.fml.common.ITickHandler;
 import cpw.mods.fml.common.TickType;
 import cpw.mods.fml.common.network.NetworkMod;
@@ -32,23 +36,26 @@ public class OvmMod {
 
     @PreInit
     public void preInit(FMLPreInitializationEvent event) {
-        System.out.println("[OVM] Pre-init: " + NAME + " " + VERSION);
+        OvmLog.info("Pre-init: {} {}", NAME, VERSION);
         OvmConfig.load(event.getModConfigurationDirectory());
     }
 
     @Init
     public void init(FMLInitializationEvent event) {
-        System.out.println("[OVM] Init");
+        OvmLog.info("Init");
 
         try {
             Object handler = OvmPacketHandler.createProxy();
             NetworkRegistry.instance().registerChannel(
                 (cpw.mods.fml.common.network.IPacketHandler) handler, CHANNEL);
-            System.out.println("[OVM] Packet channel registered");
+            OvmLog.info("Packet channel registered");
         } catch (Exception e) {
-            System.out.println("[OVM] Failed to register packet channel: " + e);
+            OvmLog.error("Failed to register packet channel: {}", e);
         }
 
+        TickRegistry.registerTickHandler(new ServerTickHandler(), Side.SERVER);
+        MinecraftForge.EVENT_BUS.register(new DropCapture());
+
         if (event.getSide().isClient()) {
             initClient();
         }
@@ -65,13 +72,49 @@ public class OvmMod {
             m.setAccessible(true);
             m.invoke(null, OvmConfig.activationKey);
         } catch (Exception e) {
-            System.out.println("[OVM] initClient error: " + e);
+            OvmLog.error("initClient error: {}", e);
         }
     }
 
     @PostInit
     public void postInit(FMLPostInitializationEvent event) {
-        System.out.println("[OVM] Post-init");
+        OvmLog.info("Post-init");
+        // Mods register their ores by Init, so the ore dictionary is complete here
+        BlockGroups.compile(OvmConfig.blockGroups, OvmConfig.oreDictionaryGroups);
+    }
+
+    @ServerStarting
+    public void serverStarting(FMLServerStartingEvent event) {
+        OvmCommand.register(event);
+        OvmStats.registerMBean();
+    }
+
+    @ServerStopping
+    public void serverStopping(FMLServerStoppingEvent event) {
+        AsyncSearch.shutdown();
+        VeinScheduler.clear();
+    }
+
+    /** Advances queued vein mining jobs at the end of every server tick. */
+    private static class ServerTickHandler implements ITickHandler {
+        @Override
+        public void tickStart(EnumSet<TickType> type, Object... tickData) {}
+
+        @Override
+        public void tickEnd(EnumSet<TickType> type, Object... tickData) {
+            VeinScheduler.tick();
+            DropCapture.tick();
+        }
+
+        @Override
+        public EnumSet<TickType> ticks() {
+            return EnumSet.of(TickType.SERVER);
+        }
+
+        @Override
+        public String getLabel() {
+            return "OvmServerTick";
+        }
     }
 
     /** Prints version to chat on first tick, then delegates to OvmClientHandler.onTick(). */
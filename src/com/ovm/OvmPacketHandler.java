@@ -46,7 +46,7 @@ public class OvmPacketHandler implements IPacketHandler {
                 }
             );
         } catch (Exception e) {
-            System.out.println("[OVM] createProxy error: " + e);
+            OvmLog.error("createProxy error: {}", e);
             return new OvmPacketHandler();
         }
     }
@@ -65,8 +65,10 @@ public class OvmPacketHandler implements IPacketHandler {
             // Read data field: MCP="data", obf="c"
             byte[] data = null;
             for (String fname : new String[]{"data", "c"}) {
-                try { Object v = packet.getClass().getField(fname).get(packet); if (v instanceof byte[]) { data = (byte[]) v; break; } }
-                catch (Exception ignored) {}
+                try {
+                    Object v = packet.getClass().getField(fname).get(packet);
+                    if (v instanceof byte[]) { data = (byte[]) v; break; }
+                } catch (Exception ignored) {}
             }
             if (data == null) return;
 
@@ -77,8 +79,7 @@ public class OvmPacketHandler implements IPacketHandler {
             int originBlockId = (data.length >= 16) ? in.readInt() : 0;
             VeinMiner.veinmine((Player) player, x, y, z, originBlockId);
         } catch (Exception e) {
-            System.out.println("[OVM] Packet error: " + e);
-            e.printStackTrace();
+            OvmLog.error("Packet error: {}", e);
         }
     }
 }
@@ -0,0 +1,205 @@
+package com.ovm;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Server-side counters and per-phase latency histograms for veinmine operations.
+ *
+ * Phases: admission (VeinAdmission), search (buildVein, on a worker when searchThreads > 0),
+ * drops (accounting for the vanilla-broken origin), mining (harvest loop per batch), updates
+ * (BulkRemoval.flush: relight, client marks, neighbour notifications), delivery
+ * (DropDelivery), hunger (food and tool wear) and leaves (TreeFelling, after felling logs).
+ * Every phase except search runs on the server thread, so those histograms add up to OVM's
+ * tick time.
+ *
+ * Also counted: block reads that hit an unloaded chunk (read as air, never loaded) and
+ * requests rejected because the origin was out of the player's reach or in an unloaded chunk.
+ *
+ * Recording costs two System.nanoTime calls and a few uncontended atomic increments per
+ * phase, so it is always on. Read through /ovm stats (OvmCommand) or JMX (OvmStatsMBean).
+ */
+public final class OvmStats implements OvmStatsMBean {
+
+    static final int ADMISSION = 0, SEARCH = 1, DROPS = 2, MINING = 3,
+                     UPDATES = 4, DELIVERY = 5, HUNGER = 6, LEAVES = 7;
+    private static final String[] PHASE_NAMES = {
+        "admission", "search", "drops", "mining", "updates", "delivery", "hunger", "leaves"
+    };
+
+    private static final LatencyHistogram[] phases = new LatencyHistogram[PHASE_NAMES.length];
+    static {
+        for (int i = 0; i < phases.length; i++) phases[i] = new LatencyHistogram();
+    }
+
+    private static final AtomicLong operations = new AtomicLong();
+    private static final AtomicLong blocksMined = new AtomicLong();
+    private static final AtomicLong blocksSearched = new AtomicLong();
+    private static final AtomicLong probes = new AtomicLong();
+    private static final AtomicLong skippedUnloaded = new AtomicLong();
+    private static final AtomicLong outOfReach = new AtomicLong();
+
+    // Username → { operations, blocks mined, server nanos }; written on the server thread only
+    private static final Map<String, long[]> players = new ConcurrentHashMap<String, long[]>();
+
+    static void record(int phase, long nanos) {
+        phases[phase].record(nanos);
+    }
+
+    /** A finished search: its duration, vein size and block reads. Any thread. */
+    static void searched(long nanos, int blocks, int reads) {
+        phases[SEARCH].record(nanos);
+        blocksSearched.addAndGet(blocks);
+        probes.addAndGet(reads);
+    }
+
+    /** A search or mining read that found its chunk unloaded. Any thread. */
+    static void skippedUnloaded() {
+        skippedUnloaded.incrementAndGet();
+    }
+
+    /** A request whose origin the player could not have broken. */
+    static void outOfReach() {
+        outOfReach.incrementAndGet();
+    }
+
+    /** A finished operation, with the server-thread time spent on it. */
+    static void finished(Object player, int blocks, long nanos) {
+        operations.incrementAndGet();
+        blocksMined.addAndGet(blocks);
+        String name = McAccessor.getUsername(player);
+        if (name == null) name = "?";
+        long[] t = players.get(name);
+        if (t == null) players.put(name, t = new long[3]);
+        t[0]++;
+        t[1] += blocks;
+        t[2] += nanos;
+    }
+
+    /** Report lines for /ovm stats. */
+    static List<String> report() {
+        List<String> lines = new ArrayList<String>();
+        OvmStats s = new OvmStats();
+        lines.add("OVM: " + s.getOperations() + " ops, " + s.getBlocksMined() + " blocks mined, "
+            + s.getBlocksSearched() + " searched, " + String.format("%.2f", s.getProbesPerBlock()) + " probes/block");
+        for (String p : s.getPhases()) lines.add(p);
+        lines.add("requests: " + s.getAdmission() + ", out of reach=" + s.getOutOfReach());
+        lines.add("unloaded chunk reads skipped: " + s.getSkippedUnloaded());
+        lines.add("cache: " + s.getVeinCache());
+        String[] top = s.getPlayers();
+        for (int i = 0; i < top.length && i < 5; i++) lines.add(top[i]);
+        return lines;
+    }
+
+    /** Register the MBean with the platform MBean server (once per JVM). */
+    static void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("com.ovm:type=OvmStats");
+            if (!server.isRegistered(name)) server.registerMBean(new OvmStats(), name);
+        } catch (Exception e) {
+            OvmLog.warn("stats MBean not registered: {}", e);
+        }
+    }
+
+    // -----------------------------------------------------------------------
+    // OvmStatsMBean
+    // -----------------------------------------------------------------------
+
+    @Override
+    public long getOperations() {
+        return operations.get();
+    }
+
+    @Override
+    public long getBlocksMined() {
+        return blocksMined.get();
+    }
+
+    @Override
+    public long getBlocksSearched() {
+        return blocksSearched.get();
+    }
+
+    @Override
+    public double getProbesPerBlock() {
+        long b = blocksSearched.get();
+        return b == 0 ? 0 : (double) probes.get() / b;
+    }
+
+    @Override
+    public long getSkippedUnloaded() {
+        return skippedUnloaded.get();
+    }
+
+    @Override
+    public long getOutOfReach() {
+        return outOfReach.get();
+    }
+
+    @Override
+    public String[] getPhases() {
+        String[] out = new String[phases.length];
+        for (int i = 0; i < phases.length; i++) {
+            LatencyHistogram h = phases[i];
+            out[i] = PHASE_NAMES[i] + ": n=" + h.count() + " p50=" + micros(h.percentile(0.5))
+                + " p99=" + micros(h.percentile(0.99)) + " max=" + micros(h.maxNanos())
+                + " total=" + micros(h.totalNanos());
+        }
+        return out;
+    }
+
+    @Override
+    public String[] getPlayers() {
+        List<Map.Entry<String, long[]>> list = new ArrayList<Map.Entry<String, long[]>>(players.entrySet());
+        Collections.sort(list, new Comparator<Map.Entry<String, long[]>>() {
+            @Override
+            public int compare(Map.Entry<String, long[]> a, Map.Entry<String, long[]> b) {
+                long x = a.getValue()[2], y = b.getValue()[2];
+                return x < y ? 1 : x > y ? -1 : 0;
+            }
+        });
+        String[] out = new String[list.size()];
+        for (int i = 0; i < out.length; i++) {
+            long[] t = list.get(i).getValue();
+            out[i] = list.get(i).getKey() + ": " + t[0] + " ops, " + t[1] + " blocks, " + micros(t[2]);
+        }
+        return out;
+    }
+
+    @Override
+    public String getAdmission() {
+        return VeinAdmission.summary();
+    }
+
+    @Override
+    public String getVeinCache() {
+        return "hits=" + VeinCache.hits + " misses=" + VeinCache.misses + " evictions=" + VeinCache.evictions
+            + " invalidations=" + VeinCache.invalidations + " entries=" + VeinCache.size()
+            + " KiB=" + (VeinCache.bytes() >> 10);
+    }
+
+    @Override
+    public void reset() {
+        for (LatencyHistogram h : phases) h.reset();
+        operations.set(0);
+        blocksMined.set(0);
+        blocksSearched.set(0);
+        probes.set(0);
+        skippedUnloaded.set(0);
+        outOfReach.set(0);
+        players.clear();
+    }
+
+    private static String micros(long nanos) {
+        return nanos < 10000000L ? (nanos / 1000) + "us" : (nanos / 1000000) + "ms";
+    }
+}
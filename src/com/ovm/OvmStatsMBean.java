@@ -0,0 +1,31 @@
+package com.ovm;
+
+/** JMX view of OvmStats, registered as com.ovm:type=OvmStats. */
+public interface OvmStatsMBean {
+
+    long getOperations();
+
+    long getBlocksMined();
+
+    long getBlocksSearched();
+
+    double getProbesPerBlock();
+
+    /** Block reads that found their chunk unloaded (read as air instead of loading it). */
+    long getSkippedUnloaded();
+
+    /** Requests rejected: origin beyond maxReachDistance or in an unloaded chunk. */
+    long getOutOfReach();
+
+    /** One line per phase: count, p50, p99, max and total in microseconds. */
+    String[] getPhases();
+
+    /** One line per player: operations, blocks mined, server time. */
+    String[] getPlayers();
+
+    String getAdmission();
+
+    String getVeinCache();
+
+    void reset();
+}
@@ -0,0 +1,18 @@
+package com.ovm;
+
+/**
+ * Block position packed into one long: x 26 bits | z 26 bits | y 12 bits, all signed.
+ * Covers the whole 1.4.7 world (±30M horizontally) plus one block outside 0..255 vertically.
+ */
+public final class PackedPos {
+
+    private PackedPos() {}
+
+    public static long pack(int x, int y, int z) {
+        return ((long) x << 38) | (((long) z & 0x3FFFFFFL) << 12) | (y & 0xFFFL);
+    }
+
+    public static int x(long p) { return (int) (p >> 38); }
+    public static int y(long p) { return (int) (p << 52 >> 52); }
+    public static int z(long p) { return (int) (p << 26 >> 38); }
+}
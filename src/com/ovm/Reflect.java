@@ -2,11 +2,19 @@ package com.ovm;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Reflection utilities for accessing obfuscated Minecraft members.
  * All methods try multiple names (MCP deobfuscated + runtime obfuscated)
  * and silently fall back to defaults on failure.
+ *
+ * The name-list lookups (getField, invokeNoArg, ...) resolve each (class, names, signature)
+ * once and cache the member or the miss, so repeated calls are a map lookup plus the
+ * reflective access itself.
  */
 public class Reflect {
 
@@ -19,6 +27,15 @@ public class Reflect {
         throw new NoSuchFieldException(name);
     }
 
+    /** Walk class hierarchy to find a declared method (any visibility) by name and parameter types. */
+    public static Method findMethod(Class<?> cls, String name, Class<?>... params) throws NoSuchMethodException {
+        for (Class<?> c = cls; c != null && c != Object.class; c = c.getSuperclass()) {
+            try { Method m = c.getDeclaredMethod(name, params); m.setAccessible(true); return m; }
+            catch (NoSuchMethodException ignored) {}
+        }
+        throw new NoSuchMethodException(name);
+    }
+
     /** Walk class hierarchy to find a declared int field by name. */
     public static Field findIntField(Class<?> cls, String name) throws NoSuchFieldException {
         for (Class<?> c = cls; c != null && c != Object.class; c = c.getSuperclass()) {
@@ -32,78 +49,172 @@ public class Reflect {
 
     /**
      * Get a typed field value from obj, trying each name in order.
-     * Tries public fields first, then hierarchy walk.
-     * Returns type default (null/false/0) if not found.
+     * Tries public fields first, then hierarchy walk; a field whose type cannot be read as
+     * the requested type is skipped. Returns type default (null/false/0) if not found.
      */
     @SuppressWarnings("unchecked")
     public static <T> T getField(Object obj, Class<T> type, String... names) {
-        for (String name : names) {
-            try {
-                Field f = obj.getClass().getField(name);
-                return (T) fieldGet(f, obj, type);
-            } catch (Exception ignored) {}
-            try {
-                Field f = findField(obj.getClass(), name);
-                return (T) fieldGet(f, obj, type);
-            } catch (Exception ignored) {}
-        }
-        return defaultValue(type);
+        if (obj == null) return defaultValue(type);
+        Object f = resolve(obj.getClass(), FIELD, type, names);
+        if (f == MISSING) return defaultValue(type);
+        try { return (T) fieldGet((Field) f, obj, type); }
+        catch (Exception e) { return defaultValue(type); }
     }
 
     /** Get a typed static field value, trying each name in order. */
     @SuppressWarnings("unchecked")
     public static <T> T getStaticField(Class<?> cls, Class<T> type, String... names) {
-        for (String name : names) {
-            try {
-                Field f = cls.getDeclaredField(name);
-                f.setAccessible(true);
-                return (T) f.get(null);
-            } catch (Exception ignored) {}
-        }
-        return defaultValue(type);
+        Object f = resolve(cls, STATIC_FIELD, type, names);
+        if (f == MISSING) return defaultValue(type);
+        try { return (T) ((Field) f).get(null); }
+        catch (Exception e) { return defaultValue(type); }
     }
 
     /** Invoke a no-arg method, trying each name. Returns type default on failure. */
     @SuppressWarnings("unchecked")
     public static <T> T invokeNoArg(Object obj, Class<T> type, String... names) {
-        for (String name : names) {
-            try {
-                Method m = obj.getClass().getMethod(name);
-                Object result = m.invoke(obj);
-                return result != null ? (T) result : defaultValue(type);
-            } catch (Exception ignored) {}
-        }
-        return defaultValue(type);
+        if (obj == null) return defaultValue(type);
+        Object m = resolve(obj.getClass(), NO_ARG, null, names);
+        if (m == MISSING) return defaultValue(type);
+        try {
+            Object result = ((Method) m).invoke(obj);
+            return result != null ? (T) result : defaultValue(type);
+        } catch (Exception e) { return defaultValue(type); }
     }
 
     /** Invoke a static no-arg method, trying each name. Returns type default on failure. */
     @SuppressWarnings("unchecked")
     public static <T> T invokeStatic(Class<?> cls, Class<T> type, String... names) {
-        for (String name : names) {
-            try {
-                Method m = cls.getDeclaredMethod(name);
-                m.setAccessible(true);
-                Object result = m.invoke(null);
-                return result != null ? (T) result : defaultValue(type);
-            } catch (Exception ignored) {}
-        }
-        return defaultValue(type);
+        Object m = resolve(cls, STATIC_NO_ARG, null, names);
+        if (m == MISSING) return defaultValue(type);
+        try {
+            Object result = ((Method) m).invoke(null);
+            return result != null ? (T) result : defaultValue(type);
+        } catch (Exception e) { return defaultValue(type); }
     }
 
     /** Invoke a method taking a single String arg, trying each name. */
     public static void invokeWithString(Object obj, String arg, String... names) {
-        for (String name : names) {
-            try { obj.getClass().getMethod(name, String.class).invoke(obj, arg); return; }
-            catch (Exception ignored) {}
-        }
+        if (obj == null) return;
+        Object m = resolve(obj.getClass(), ONE_ARG, String.class, names);
+        if (m == MISSING) return;
+        try { ((Method) m).invoke(obj, arg); }
+        catch (Exception ignored) {}
     }
 
     /** Invoke a method taking a single float arg, trying each name. */
     public static void invokeWithFloat(Object obj, float arg, String... names) {
+        if (obj == null) return;
+        Object m = resolve(obj.getClass(), ONE_ARG, float.class, names);
+        if (m == MISSING) return;
+        try { ((Method) m).invoke(obj, arg); }
+        catch (Exception ignored) {}
+    }
+
+    // -----------------------------------------------------------------------
+    // Resolution cache
+    // -----------------------------------------------------------------------
+
+    // Member kinds; the Key's type is the requested value type (fields) or parameter type (ONE_ARG)
+    private static final int FIELD = 0, STATIC_FIELD = 1, NO_ARG = 2, STATIC_NO_ARG = 3, ONE_ARG = 4;
+
+    // Cached result when no name resolves
+    private static final Object MISSING = new Object();
+
+    private static final class Key {
+        final Class<?> cls;
+        final int kind;
+        final Class<?> type;
+        final String[] names;
+        final int hash;
+
+        Key(Class<?> cls, int kind, Class<?> type, String[] names) {
+            this.cls = cls;
+            this.kind = kind;
+            this.type = type;
+            this.names = names;
+            int h = (cls.hashCode() * 31 + kind) * 31 + Arrays.hashCode(names);
+            this.hash = h + (type != null ? type.hashCode() : 0);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return k.cls == cls && k.kind == kind && k.type == type && Arrays.equals(k.names, names);
+        }
+    }
+
+    // (class, kind, type, names) → Field / Method, or MISSING. Shared with search worker threads.
+    private static final Map<Key, Object> resolved = new ConcurrentHashMap<Key, Object>();
+
+    /**
+     * The member a lookup resolves to, computed once per (class, kind, type, names): the first
+     * name that exists wins, in the same order the uncached lookups used. Misses are cached
+     * too, so steady-state calls never throw NoSuchFieldException / NoSuchMethodException.
+     */
+    private static Object resolve(Class<?> cls, int kind, Class<?> type, String[] names) {
+        Key key = new Key(cls, kind, type, names);
+        Object member = resolved.get(key);
+        if (member == null) {
+            member = lookup(cls, kind, type, names);
+            resolved.put(key, member);
+        }
+        return member;
+    }
+
+    private static Object lookup(Class<?> cls, int kind, Class<?> type, String[] names) {
         for (String name : names) {
-            try { obj.getClass().getMethod(name, float.class).invoke(obj, arg); return; }
-            catch (Exception ignored) {}
+            try {
+                switch (kind) {
+                    case FIELD: {
+                        Field f = null;
+                        try { f = cls.getField(name); }
+                        catch (NoSuchFieldException e) { f = findField(cls, name); }
+                        if (!readableAs(f, type)) {
+                            f = findField(cls, name);
+                            if (!readableAs(f, type)) continue;
+                        }
+                        f.setAccessible(true);
+                        return f;
+                    }
+                    case STATIC_FIELD: {
+                        Field f = cls.getDeclaredField(name);
+                        if (!Modifier.isStatic(f.getModifiers()) || !readableAs(f, type)) continue;
+                        f.setAccessible(true);
+                        return f;
+                    }
+                    case NO_ARG:
+                        return cls.getMethod(name);
+                    case STATIC_NO_ARG: {
+                        Method m = cls.getDeclaredMethod(name);
+                        if (!Modifier.isStatic(m.getModifiers())) continue;
+                        m.setAccessible(true);
+                        return m;
+                    }
+                    default:
+                        return cls.getMethod(name, type);
+                }
+            } catch (Exception ignored) {}
         }
+        return MISSING;
+    }
+
+    /**
+     * Whether fieldGet can read f as type (primitive getters only widen; reference types must be
+     * assignable, so a same-named field of another type is skipped instead of failing the cast).
+     */
+    private static boolean readableAs(Field f, Class<?> type) {
+        Class<?> t = f.getType();
+        if (type == boolean.class) return t == boolean.class;
+        if (type == int.class)     return t == int.class || t == short.class || t == char.class || t == byte.class;
+        if (type == double.class)  return t.isPrimitive() && t != boolean.class;
+        return type == Object.class || type.isAssignableFrom(t);
     }
 
     static Object fieldGet(Field f, Object obj, Class<?> type) throws Exception {
@@ -0,0 +1,180 @@
+package com.ovm;
+
+import java.lang.reflect.Method;
+
+/**
+ * Removes the canopy a tree-felling job leaves without support, as batches that follow the
+ * job's last log batch, instead of leaving it to leaf decay.
+ *
+ * BlockLeaves.updateTick keeps a leaf while a log is at most REACH face steps away through
+ * leaves, and drops it (saplings, apples) otherwise. Every removed log flags the leaves around
+ * it for that check, so a felled tree decays leaf by leaf over many random ticks, each drop a
+ * separate EntityItem. Here the same rule is applied once over the area around the felled logs
+ * (findOrphans):
+ *   1. Explore leaves up to 2 * REACH - 1 steps from the felled logs, noting logs next to them.
+ *   2. Spread support from those logs through the explored leaves, REACH steps.
+ *   3. Explored leaves within REACH of a felled log and unsupported are the orphans.
+ * A leaf within REACH of a remaining log has a path of at most REACH - 1 leaves to it, all
+ * within 2 * REACH - 1 of the felled logs, so step 1 sees every path that matters.
+ * bench/com/ovm/LeafDecayCheck compares the result with the per-leaf rule.
+ *
+ * Logs and leaves are BlockGroups.isLog / isLeaves (vanilla plus OreDictionary logWood and
+ * treeLeaves). The job removes the orphans blocksPerBatch at a time under the scheduler's
+ * tick budget (removeLeaves): player-placed leaves (meta bit 4) stay, the rest drop as decay
+ * would (Block.dropBlockAsItemWithChance, chance 1) into the job's drop map through
+ * DropCapture.
+ */
+final class TreeFelling {
+
+    // BlockLeaves: support distance, and the meta bit of player-placed (never decaying) leaves
+    static final int REACH = 4;
+    private static final int NO_DECAY = 4;
+
+    // Face order as World.notifyBlocksOfNeighborChange
+    private static final int[][] FACES = {
+        { -1, 0, 0 }, { 1, 0, 0 }, { 0, -1, 0 }, { 0, 1, 0 }, { 0, 0, -1 }, { 0, 0, 1 }
+    };
+
+    private static volatile Invokers.DropChance dropInvoker;
+    private static volatile boolean dropResolved;
+
+    private TreeFelling() {}
+
+    /** Leaves left without support by felling these logs (already air in blocks), in exploration order. */
+    static long[] findOrphans(BlockSource blocks, long[] felled, int felledCount) {
+        if (felledCount == 0) return new long[0];
+
+        // 1. Leaves by distance from the felled logs (value = steps), and the logs beside them
+        LongIntMap depth = new LongIntMap(felledCount * 8);
+        long[] queue = new long[Math.max(felledCount * 4, 64)];
+        int tail = 0;
+        long[] logs = new long[16];
+        int logCount = 0;
+        LongIntMap seenLogs = new LongIntMap(16);
+        for (int i = 0; i < felledCount; i++) {
+            if (depth.get(felled[i], -1) >= 0) continue;
+            depth.put(felled[i], 0);
+            if (tail == queue.length) queue = java.util.Arrays.copyOf(queue, tail * 2);
+            queue[tail++] = felled[i];
+        }
+        int seeds = tail;
+        for (int head = 0; head < tail; head++) {
+            long p = queue[head];
+            int d = depth.get(p, 0);
+            int x = PackedPos.x(p), y = PackedPos.y(p), z = PackedPos.z(p);
+            for (int[] f : FACES) {
+                int nx = x + f[0], ny = y + f[1], nz = z + f[2];
+                long n = PackedPos.pack(nx, ny, nz);
+                int id = blocks.getBlockId(nx, ny, nz);
+                if (BlockGroups.isLog(id) && d > 0) {
+                    if (seenLogs.get(n, 0) != 0) continue;
+                    seenLogs.put(n, 1);
+                    if (logCount == logs.length) logs = java.util.Arrays.copyOf(logs, logCount * 2);
+                    logs[logCount++] = n;
+                } else if (BlockGroups.isLeaves(id) && d < 2 * REACH - 1 && depth.get(n, -1) < 0) {
+                    depth.put(n, d + 1);
+                    if (tail == queue.length) queue = java.util.Arrays.copyOf(queue, tail * 2);
+                    queue[tail++] = n;
+                }
+            }
+        }
+        if (tail == seeds) return new long[0];
+
+        // 2. Support: leaves within REACH steps of a remaining log, through explored leaves
+        LongIntMap supported = new LongIntMap(tail);
+        long[] front = new long[Math.max(logCount, 16)];
+        System.arraycopy(logs, 0, front, 0, logCount);
+        int frontCount = logCount;
+        for (int step = 1; step <= REACH && frontCount > 0; step++) {
+            long[] nextFront = new long[Math.max(frontCount * 2, 16)];
+            int nextCount = 0;
+            for (int i = 0; i < frontCount; i++) {
+                long p = front[i];
+                int x = PackedPos.x(p), y = PackedPos.y(p), z = PackedPos.z(p);
+                for (int[] f : FACES) {
+                    long n = PackedPos.pack(x + f[0], y + f[1], z + f[2]);
+                    if (depth.get(n, 0) <= 0 || supported.get(n, 0) != 0) continue;
+                    supported.put(n, 1);
+                    if (nextCount == nextFront.length) nextFront = java.util.Arrays.copyOf(nextFront, nextCount * 2);
+                    nextFront[nextCount++] = n;
+                }
+            }
+            front = nextFront;
+            frontCount = nextCount;
+        }
+
+        // 3. Orphans: near a felled log, no remaining log in reach
+        long[] orphans = new long[tail - seeds];
+        int count = 0;
+        for (int i = seeds; i < tail; i++) {
+            long p = queue[i];
+            if (depth.get(p, 0) <= REACH && supported.get(p, 0) == 0) orphans[count++] = p;
+        }
+        return java.util.Arrays.copyOf(orphans, count);
+    }
+
+    /**
+     * Remove orphans [from, to) as decay would, skipping positions that are no longer leaves,
+     * are player-placed or sit in unloaded chunks. Returns the number removed. Main thread.
+     */
+    static int removeLeaves(Object world, long[] orphans, int from, int to, BulkRemoval removal,
+                            Drops drops) {
+        int removed = 0;
+        for (int i = from; i < to; i++) {
+            long p = orphans[i];
+            int x = PackedPos.x(p), y = PackedPos.y(p), z = PackedPos.z(p);
+            if (!McAccessor.chunkExists(world, x >> 4, z >> 4)) {
+                OvmStats.skippedUnloaded();
+                continue;
+            }
+            int id = McAccessor.getBlockId(world, x, y, z);
+            if (!BlockGroups.isLeaves(id)) continue;
+            int meta = McAccessor.getBlockMeta(world, x, y, z);
+            if ((meta & NO_DECAY) != 0) continue;
+            Object leaves = McAccessor.getBlock(id);
+            if (leaves == null) continue;
+            drop(id, leaves, world, x, y, z, meta, drops);
+            removal.remove(x, y, z, id);
+            VeinCache.onMined(world, p);
+            removed++;
+        }
+        return removed;
+    }
+
+    /** Decay drops of one leaf block into drops. */
+    private static void drop(int id, Object leaves, Object world, int x, int y, int z, int meta, Drops drops) {
+        Invokers.DropChance d = dropInvoker(leaves);
+        if (d == null) {
+            VeinMiner.collectBlockDrops(id, leaves, meta, drops);
+            return;
+        }
+        DropCapture.begin(world, drops);
+        try {
+            d.call(leaves, world, x, y, z, meta, 1.0f, 0);
+        } catch (Exception e) {
+            OvmLog.error("leaf drop error: {}", e);
+        } finally {
+            DropCapture.end();
+        }
+    }
+
+    /**
+     * Block.dropBlockAsItemWithChance(World, x, y, z, meta, chance, fortune): the only Block
+     * method taking (object, int, int, int, int, float, int).
+     */
+    private static Invokers.DropChance dropInvoker(Object block) {
+        if (!dropResolved) {
+            for (Method m : block.getClass().getMethods()) {
+                Class<?>[] p = m.getParameterTypes();
+                if (m.getReturnType() == void.class && p.length == 7 && !p[0].isPrimitive()
+                        && p[1] == int.class && p[2] == int.class && p[3] == int.class && p[4] == int.class
+                        && p[5] == float.class && p[6] == int.class) {
+                    dropInvoker = Invokers.bind(Invokers.DropChance.class, m);
+                    break;
+                }
+            }
+            dropResolved = true;
+        }
+        return dropInvoker;
+    }
+}
@@ -0,0 +1,86 @@
+package com.ovm;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Admission control for veinmine requests, checked before any search work is done.
+ *
+ * In order: coalescing (the origin lies in a vein a queued job will mine anyway), the
+ * server-wide cap on queued jobs, the per-player cap on queued jobs, and a per-player token
+ * bucket refilled at blocksPerSecond. A request needs one token to be admitted; once its vein
+ * is known the full block count is charged, so a large vein leaves the bucket in debt and
+ * delays the player's next request instead of being cut short.
+ *
+ * Counters are cumulative since server start. Main server thread only.
+ */
+public class VeinAdmission {
+
+    public static final int ADMITTED  = 0;
+    public static final int COALESCED = 1;
+    public static final int REJECTED  = 2;
+    public static final int THROTTLED = 3;
+
+    public static long admitted, coalesced, rejected, throttled;
+
+    private static final class Bucket {
+        double tokens;
+        long refilledAt;
+    }
+
+    // Entity equals/hashCode are by entity ID; weak keys drop buckets of logged-out players
+    private static final Map<Object, Bucket> buckets = new WeakHashMap<Object, Bucket>();
+
+    /** Decide whether a request at (x, y, z) may start a search. */
+    static int admit(Object player, Object world, int x, int y, int z) {
+        if (VeinScheduler.covers(world, PackedPos.pack(x, y, z))) {
+            coalesced++;
+            return COALESCED;
+        }
+        if (VeinScheduler.totalJobs() >= OvmConfig.maxActiveJobs
+                || VeinScheduler.jobsOf(player) >= OvmConfig.maxPendingPerPlayer) {
+            rejected++;
+            return REJECTED;
+        }
+        if (refill(player).tokens < 1) {
+            throttled++;
+            return THROTTLED;
+        }
+        admitted++;
+        return ADMITTED;
+    }
+
+    static String describe(int verdict) {
+        switch (verdict) {
+            case ADMITTED:  return "admitted";
+            case COALESCED: return "coalesced";
+            case REJECTED:  return "rejected";
+            default:        return "throttled";
+        }
+    }
+
+    public static String summary() {
+        return "admitted=" + admitted + " coalesced=" + coalesced + " rejected=" + rejected + " throttled=" + throttled;
+    }
+
+    /** Charge a searched vein of the given size to the player's bucket. */
+    static void charge(Object player, int blocks) {
+        refill(player).tokens -= blocks;
+    }
+
+    private static Bucket refill(Object player) {
+        long now = System.nanoTime();
+        double capacity = Math.max(OvmConfig.blocksPerSecond, OvmConfig.maxBlocks);
+        Bucket b = buckets.get(player);
+        if (b == null) {
+            b = new Bucket();
+            b.tokens = capacity;
+            b.refilledAt = now;
+            buckets.put(player, b);
+            return b;
+        }
+        b.tokens = Math.min(capacity, b.tokens + (now - b.refilledAt) * 1e-9 * OvmConfig.blocksPerSecond);
+        b.refilledAt = now;
+        return b;
+    }
+}
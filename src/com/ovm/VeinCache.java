@@ -0,0 +1,302 @@
+package com.ovm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * LRU cache of complete vein components, so a request landing in a vein that was searched
+ * recently reuses the stored set instead of flooding again.
+ *
+ * Only exhaustive searches (frontier emptied before the search limit) are stored, keyed by
+ * world, canonical block ID and component; a request hits if its origin is a member of an
+ * entry. Jobs search past the player's budget up to OvmConfig.veinCacheSearch blocks (see
+ * VeinMiner.Job.searchLimit), so the part of a vein a capped job leaves behind is cached too.
+ * A hit returns the members still connected to the new origin: mining can split a component,
+ * so the remaining members are flood-filled from the origin rather than handed out whole.
+ * Entries are kept current by an IWorldAccess listener registered on each world:
+ * markBlockForUpdate on a member that no longer matches removes it (the vanilla break of the
+ * next origin, other players' mining); a block next to the component that now matches, or
+ * a range update overlapping it, drops the entry. Mining done here is reported through
+ * onMined() with the listener muted, since truncated veins border matching non-members.
+ * Entries are indexed by every chunk their shell box touches, so lookups and world marks only
+ * look at the entries of one chunk.
+ *
+ * Bounded by OvmConfig.veinCacheEntries and an estimated OvmConfig.veinCacheKiB.
+ * Main server thread only.
+ */
+public class VeinCache {
+
+    public static long hits, misses, evictions, invalidations;
+
+    private static final class Entry {
+        final Object world;
+        final int blockId;
+        final long[] vein;              // mining order from the original origin
+        final LongIntMap members;       // position → index in vein, -1 once removed
+        final int minX, minY, minZ, maxX, maxY, maxZ;
+        final long key;
+        int remaining;
+
+        Entry(long key, Object world, int blockId, long[] vein) {
+            this.key = key;
+            this.world = world;
+            this.blockId = blockId;
+            this.vein = vein;
+            this.members = new LongIntMap(vein.length);
+            int x0 = Integer.MAX_VALUE, y0 = Integer.MAX_VALUE, z0 = Integer.MAX_VALUE;
+            int x1 = Integer.MIN_VALUE, y1 = Integer.MIN_VALUE, z1 = Integer.MIN_VALUE;
+            for (int i = 0; i < vein.length; i++) {
+                long p = vein[i];
+                members.put(p, i);
+                int x = PackedPos.x(p), y = PackedPos.y(p), z = PackedPos.z(p);
+                if (x < x0) x0 = x; if (x > x1) x1 = x;
+                if (y < y0) y0 = y; if (y > y1) y1 = y;
+                if (z < z0) z0 = z; if (z > z1) z1 = z;
+            }
+            // Expanded by the neighbour shell: a new matching block there joins the component
+            minX = x0 - 1; minY = y0 - 1; minZ = z0 - 1;
+            maxX = x1 + 1; maxY = y1 + 1; maxZ = z1 + 1;
+            remaining = vein.length;
+        }
+
+        boolean near(int x, int y, int z) {
+            return x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ;
+        }
+
+        /** Rough heap footprint: vein array plus the membership table. */
+        long bytes() {
+            return 64 + vein.length * 8L + vein.length * 4L / 3 * 13;
+        }
+    }
+
+    private static long cachedBytes;
+    private static boolean muted;
+
+    private static final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<Long, Entry>(16, 0.75f, true);
+    private static long nextKey;
+
+    // Chunk key → entries whose shell box overlaps the chunk (any world)
+    private static final Map<Long, List<Entry>> byChunk = new HashMap<Long, List<Entry>>();
+
+    // Worlds with our listener installed (false = installation failed, cache off for that world)
+    private static final Map<Object, Boolean> watched = new WeakHashMap<Object, Boolean>();
+
+    /**
+     * Cached vein containing origin: the remaining members connected to origin, re-ordered by
+     * distance from it and limited to maxCount. Null on miss.
+     */
+    static long[] lookup(Object world, int blockId, int ox, int oy, int oz, int maxCount) {
+        if (!isEnabled(world)) return null;
+        long origin = PackedPos.pack(ox, oy, oz);
+        Entry hit = null;
+        List<Entry> list = byChunk.get(chunkKey(ox >> 4, oz >> 4));
+        if (list != null) {
+            for (Entry e : list) {
+                if (e.world != world || e.blockId != blockId) continue;
+                if (e.members.get(origin, Integer.MIN_VALUE) != Integer.MIN_VALUE) {
+                    hit = e;
+                    break;
+                }
+            }
+        }
+        if (hit == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        entries.get(hit.key);                                       // refreshes LRU order
+        return reorder(hit, ox, oy, oz, maxCount);
+    }
+
+    /** Store a finished search. Only complete components (vein shorter than the search limit) are kept. */
+    static void store(Object world, int blockId, long[] vein, int searchLimit) {
+        if (vein.length == 0 || vein.length >= searchLimit || !isEnabled(world)) return;
+        Entry e = new Entry(nextKey++, world, blockId, vein);
+        long limit = OvmConfig.veinCacheKiB * 1024L;
+        if (e.bytes() > limit) return;
+        entries.put(e.key, e);
+        index(e);
+        cachedBytes += e.bytes();
+        Iterator<Entry> it = entries.values().iterator();
+        while ((entries.size() > OvmConfig.veinCacheEntries || cachedBytes > limit) && it.hasNext()) {
+            Entry old = it.next();
+            it.remove();
+            unindex(old);
+            cachedBytes -= old.bytes();
+            evictions++;
+        }
+    }
+
+    /** A block at pos was mined by a job: drop it from every entry. */
+    static void onMined(Object world, long pos) {
+        if (entries.isEmpty()) return;
+        List<Entry> list = byChunk.get(chunkKey(PackedPos.x(pos) >> 4, PackedPos.z(pos) >> 4));
+        if (list == null) return;
+        for (Entry e : list) {
+            if (e.world != world) continue;
+            if (e.members.get(pos, -1) >= 0) { e.members.put(pos, -1); e.remaining--; }
+        }
+    }
+
+    /** Ignore world marks while set (our own client sync marks). */
+    static void mute(boolean mute) {
+        muted = mute;
+    }
+
+    public static int size() {
+        return entries.size();
+    }
+
+    public static long bytes() {
+        return cachedBytes;
+    }
+
+    // -----------------------------------------------------------------------
+
+    private static long[] reorder(Entry e, int ox, int oy, int oz, int maxCount) {
+        // Flood fill (26 neighbours) from the origin through the remaining members; the origin
+        // itself is usually gone already (vanilla broke it)
+        boolean[] reached = new boolean[e.vein.length];
+        int[] stack = new int[Math.max(e.remaining, 1)];
+        long[] keys = new long[e.remaining];
+        int n = 0, top = 0;
+        long p = PackedPos.pack(ox, oy, oz);
+        while (true) {
+            int x = PackedPos.x(p), y = PackedPos.y(p), z = PackedPos.z(p);
+            for (int dx = -1; dx <= 1; dx++)
+                for (int dy = -1; dy <= 1; dy++)
+                    for (int dz = -1; dz <= 1; dz++) {
+                        int i = e.members.get(PackedPos.pack(x + dx, y + dy, z + dz), -1);
+                        if (i < 0 || reached[i]) continue;
+                        reached[i] = true;
+                        stack[top++] = i;
+                        long ddx = x + dx - ox, ddy = y + dy - oy, ddz = z + dz - oz;
+                        // distance in the high bits, original index below keeps the sort stable
+                        keys[n++] = (ddx * ddx + ddy * ddy + ddz * ddz) << 32 | i;
+                    }
+            if (top == 0) break;
+            p = e.vein[stack[--top]];
+        }
+        long[] out = new long[Math.min(n, maxCount)];
+        Arrays.sort(keys, 0, n);
+        for (int i = 0; i < out.length; i++) out[i] = e.vein[(int) keys[i]];
+        return out;
+    }
+
+    private static long chunkKey(int cx, int cz) {
+        return ((long) cx << 32) | (cz & 0xFFFFFFFFL);
+    }
+
+    private static void index(Entry e) {
+        for (int cx = e.minX >> 4; cx <= e.maxX >> 4; cx++) {
+            for (int cz = e.minZ >> 4; cz <= e.maxZ >> 4; cz++) {
+                Long key = chunkKey(cx, cz);
+                List<Entry> list = byChunk.get(key);
+                if (list == null) {
+                    list = new ArrayList<Entry>(2);
+                    byChunk.put(key, list);
+                }
+                list.add(e);
+            }
+        }
+    }
+
+    private static void unindex(Entry e) {
+        for (int cx = e.minX >> 4; cx <= e.maxX >> 4; cx++) {
+            for (int cz = e.minZ >> 4; cz <= e.maxZ >> 4; cz++) {
+                Long key = chunkKey(cx, cz);
+                List<Entry> list = byChunk.get(key);
+                if (list == null) continue;
+                list.remove(e);
+                if (list.isEmpty()) byChunk.remove(key);
+            }
+        }
+    }
+
+    private static void invalidate(Entry e) {
+        entries.remove(e.key);
+        unindex(e);
+        cachedBytes -= e.bytes();
+        invalidations++;
+    }
+
+    private static void onBlockMarked(Object world, int x, int y, int z) {
+        if (muted || entries.isEmpty()) return;
+        List<Entry> list = byChunk.get(chunkKey(x >> 4, z >> 4));
+        if (list == null) return;
+        long pos = PackedPos.pack(x, y, z);
+        int id = -1;
+        // Backwards: invalidate() removes e from this list
+        for (int i = list.size() - 1; i >= 0 && i < list.size(); i--) {
+            Entry e = list.get(i);
+            if (e.world != world || !e.near(x, y, z)) continue;
+            if (id < 0) id = BlockGroups.keyAt(world, x, y, z);
+            boolean matches = BlockGroups.matches(id, e.blockId);
+            int idx = e.members.get(pos, Integer.MIN_VALUE);
+            if (idx >= 0 && !matches) {
+                e.members.put(pos, -1);
+                e.remaining--;
+            } else if (idx == Integer.MIN_VALUE && matches) {
+                invalidate(e);
+            }
+        }
+    }
+
+    private static void onRangeMarked(Object world, int x0, int y0, int z0, int x1, int y1, int z1) {
+        if (muted || entries.isEmpty()) return;
+        List<Entry> hit = new ArrayList<Entry>();
+        long chunks = ((long) (x1 >> 4) - (x0 >> 4) + 1) * ((long) (z1 >> 4) - (z0 >> 4) + 1);
+        if (chunks > byChunk.size()) {
+            // Huge range: cheaper to test every entry than every chunk in it
+            for (Entry e : entries.values()) if (overlaps(e, world, x0, y0, z0, x1, y1, z1)) hit.add(e);
+        } else {
+            for (int cx = x0 >> 4; cx <= x1 >> 4; cx++) {
+                for (int cz = z0 >> 4; cz <= z1 >> 4; cz++) {
+                    List<Entry> list = byChunk.get(chunkKey(cx, cz));
+                    if (list == null) continue;
+                    for (Entry e : list)
+                        if (!hit.contains(e) && overlaps(e, world, x0, y0, z0, x1, y1, z1)) hit.add(e);
+                }
+            }
+        }
+        for (Entry e : hit) invalidate(e);
+    }
+
+    private static boolean overlaps(Entry e, Object world, int x0, int y0, int z0, int x1, int y1, int z1) {
+        return e.world == world && x1 >= e.minX && x0 <= e.maxX && y1 >= e.minY && y0 <= e.maxY
+            && z1 >= e.minZ && z0 <= e.maxZ;
+    }
+
+    /** Install the change listener on first use per world; false if the world cannot be watched. */
+    private static boolean isEnabled(Object world) {
+        if (OvmConfig.veinCacheEntries <= 0) return false;
+        Boolean ok = watched.get(world);
+        if (ok == null) {
+            ok = installListener(world);
+            watched.put(world, ok);
+        }
+        return ok;
+    }
+
+    private static boolean installListener(final Object world) {
+        boolean ok = McAccessor.addBlockListener(world, "OvmVeinCacheListener", new McAccessor.BlockListener() {
+            @Override
+            public void onBlockMarked(int x, int y, int z) {
+                VeinCache.onBlockMarked(world, x, y, z);
+            }
+
+            @Override
+            public void onRangeMarked(int x1, int y1, int z1, int x2, int y2, int z2) {
+                VeinCache.onRangeMarked(world, x1, y1, z1, x2, y2, z2);
+            }
+        });
+        if (!ok) OvmLog.warn("world listener unavailable; vein cache disabled");
+        return ok;
+    }
+}
@@ -1,18 +1,10 @@
 package com.ovm;
 
 import cpw.mods.fml.common.network.Player;
-import java.lang.reflect.Field;
 import java.lang.reflect.Method;
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.PriorityQueue;
 import java.util.Random;
-import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Server-side chain-mine with priority flood fill.
@@ -21,113 +13,366 @@ import java.util.Set;
  */
 public class VeinMiner {
 
-    // 26-neighbor offsets (full 3x3x3 minus center)
-    private static final int[][] NEIGHBORS = new int[26][3];
-    static {
-        int idx = 0;
-        for (int dx = -1; dx <= 1; dx++)
-            for (int dy = -1; dy <= 1; dy++)
-                for (int dz = -1; dz <= 1; dz++)
-                    if (dx != 0 || dy != 0 || dz != 0)
-                        NEIGHBORS[idx++] = new int[]{ dx, dy, dz };
-    }
-
     private static final Random RAND = new Random();
 
-    // Block id pairs treated as the same vein (e.g. redstone ore 73 ↔ lit 74).
-    private static final int[][] EQUIVALENT_IDS = { { 73, 74 } };
-
-    private static int canonicalId(int id) {
-        for (int[] pair : EQUIVALENT_IDS)
-            if (id == pair[1]) return pair[0];
-        return id;
-    }
-
-    private static boolean matchesTarget(int blockId, int targetId) {
-        if (blockId == targetId) return true;
-        for (int[] pair : EQUIVALENT_IDS)
-            if (pair[0] == targetId && blockId == pair[1]) return true;
-        return false;
-    }
-
     // -----------------------------------------------------------------------
     // Entry point
     // -----------------------------------------------------------------------
 
-    public static void veinmine(Player playerArg, int ox, int oy, int oz, int hintBlockId) {
+    /** hint: the block the client saw broken, id | meta << 12 (older clients send the ID alone). */
+    public static void veinmine(Player playerArg, int ox, int oy, int oz, int hint) {
         try {
             Object player = playerArg;
             Object world = Reflect.getField(player, Object.class, "worldObj", "p");
             if (world == null || Reflect.getField(world, boolean.class, "isRemote", "I")) return;
 
-            int originId = canonicalId(McAccessor.getBlockId(world, ox, oy, oz));
-            if (originId == 0) originId = canonicalId(hintBlockId);
-            if (originId == 0) return;
+            // The packet's coordinates are the client's word: only act on what this player could have broken
+            if (!isReachable(player, world, ox, oy, oz)) {
+                OvmStats.outOfReach();
+                OvmLog.debug("veinmine request out of reach: {},{},{}", ox, oy, oz);
+                return;
+            }
+
+            long start = System.nanoTime();
+            int verdict = VeinAdmission.admit(player, world, ox, oy, oz);
+            long admitted = System.nanoTime();
+            OvmStats.record(OvmStats.ADMISSION, admitted - start);
+            if (verdict != VeinAdmission.ADMITTED) {
+                if (OvmLog.isDebug()) {
+                    String why = VeinAdmission.describe(verdict) + " (" + VeinAdmission.summary() + ")";
+                    OvmLog.debug("veinmine request {}", why);
+                }
+                return;
+            }
+
+            // The origin is usually broken by now: fall back to what the client saw
+            int originBlockId = McAccessor.getBlockId(world, ox, oy, oz);
+            int originMeta = originBlockId != 0 ? McAccessor.getBlockMeta(world, ox, oy, oz) : (hint >>> 12) & 15;
+            if (originBlockId == 0) originBlockId = BlockGroups.idOf(hint);
+            if (originBlockId == 0) return;
+            int originId = BlockGroups.canonical(BlockGroups.key(originBlockId, originMeta));
 
             Object foodStats = Reflect.invokeNoArg(player, Object.class, "getFoodStats", "cc");
             if (foodStats == null) return;
-            if (Reflect.invokeNoArg(foodStats, int.class, "getFoodLevel", "a") < 1) {
+            int foodLevel = Reflect.invokeNoArg(foodStats, int.class, "getFoodLevel", "a");
+            if (foodLevel < 1) {
                 Reflect.invokeWithString(player, "[OVM] Not enough food to veinmine.", "addChatMessage");
                 return;
             }
 
-            Object originBlock = McAccessor.getBlock(originId);
-            if (originBlock != null && !invokeCanHarvest(player, originBlock)) {
-                System.out.println("[OVM] veinmine: canHarvest=false for originId=" + originId + ", abort");
+            Object originBlock = McAccessor.getBlock(originBlockId);
+            HarvestMemo harvest = HarvestMemo.of(player);
+            if (originBlock != null && !harvest.canHarvest(player, originBlock, originBlockId, originMeta)) {
+                OvmLog.debug("veinmine: canHarvest=false for originId={}, abort", originId);
                 return;
             }
 
-            List<int[]> vein = buildVein(world, ox, oy, oz, originId, OvmConfig.maxBlocks);
-            System.out.println("[OVM] veinmine: originId=" + originId + " vein=" + vein.size());
-            if (vein.isEmpty()) return;
+            // The search stops where the tool would break or the food run out
+            DurabilityBudget budget = DurabilityBudget.of(player, foodLevel, RAND);
+            int maxCount = Math.min(OvmConfig.maxBlocks, budget.blocks);
+            Job job = new Job(player, world, foodStats, ox, oy, oz, originId, maxCount);
+            job.budget = budget;
+            job.nanos = admitted - start;
+            if (budget.blocks < OvmConfig.maxBlocks)
+                OvmLog.debug("veinmine: tool and food allow {} blocks", budget.blocks);
+            if (BlockGroups.isLog(originBlockId) && OvmConfig.fellLeaves) job.felled = new long[64];
+
+            // Account for the origin block (already broken by vanilla): fold the EntityItems it
+            // just spawned into the job's drops. If none are found, compute its drops instead
+            // and clear the break site the slow way.
+            if (originBlock != null) {
+                long t = System.nanoTime();
+                if (DropCapture.absorbHarvest(world, ox, oy, oz, job.drops) == 0) {
+                    collectBlockDrops(originBlockId, originBlock, originMeta, job.drops);
+                    removeDroppedItems(world, ox, oy, oz);
+                }
+                job.minedCount++;
+                job.addFelled(PackedPos.pack(ox, oy, oz));
+                job.phase(OvmStats.DROPS, t);
+            }
 
-            LinkedHashMap<Integer, int[]> drops = new LinkedHashMap<Integer, int[]>();
-            int minedCount = 0;
+            // A recently searched vein containing the origin needs no search at all
+            long[] cached = job.maxCount > 0
+                ? VeinCache.lookup(world, originId, ox, oy, oz, job.maxCount)
+                : new long[0];
+            if (cached != null) {
+                job.setVein(cached, false);
+            } else {
+                // Search on a worker when possible; the job waits in the scheduler until its vein arrives.
+                // Creating the reader validates chunk section reads, which workers depend on.
+                ChunkReader reader = new ChunkReader(world, ox, oy, oz);
+                if (job.maxCount > OvmConfig.streamAbove) {
+                    job.stream(reader);
+                } else if (AsyncSearch.isAvailable()) {
+                    AsyncSearch.submit(job);
+                } else {
+                    long t = System.nanoTime();
+                    job.setVein(buildVein(reader, ox, oy, oz, originId, job.searchLimit()), true);
+                    job.nanos += System.nanoTime() - t;
+                }
+            }
 
-            // Account for the origin block (already broken by vanilla).
-            // Collect its drops and remove the vanilla EntityItem spawned at the break site.
-            if (originBlock != null) {
-                int originMeta = McAccessor.getBlockMeta(world, ox, oy, oz);
-                collectBlockDrops(originBlock, originMeta, drops);
-                removeDroppedItems(world, ox, oy, oz);
-                minedCount++;
+            VeinScheduler.submit(job);
+        } catch (Exception e) {
+            OvmLog.error("VeinMiner error: {}", e);
+        }
+    }
+
+    /**
+     * The origin is inside the world, in a loaded chunk, and within maxReachDistance of the
+     * player's eyes (as NetServerHandler checks digging, from the block centre).
+     */
+    private static boolean isReachable(Object player, Object world, int ox, int oy, int oz) {
+        if (oy < 0 || oy > 255 || !McAccessor.chunkExists(world, ox >> 4, oz >> 4)) return false;
+        double dx = McAccessor.getPosX(player) - (ox + 0.5);
+        double dy = McAccessor.getPosY(player) + 1.5 - (oy + 0.5);
+        double dz = McAccessor.getPosZ(player) - (oz + 0.5);
+        double reach = OvmConfig.maxReachDistance;
+        return dx * dx + dy * dy + dz * dz <= reach * reach;
+    }
+
+    // -----------------------------------------------------------------------
+    // Mining job (advanced in batches by VeinScheduler)
+    // -----------------------------------------------------------------------
+
+    /**
+     * One vein operation after the search: the ordered vein, a cursor into it, and the drops
+     * and block count accumulated so far. step() mines the next batch; finish() delivers drops
+     * and charges hunger and tool wear once, whether the job completed or stopped early.
+     *
+     * A streamed job (maxCount above OvmConfig.streamAbove) owns its VeinSearch instead: each
+     * step takes the next batch from it on the server thread, so blocks are mined as they are
+     * found and vein only ever holds the current batch.
+     *
+     * A tree-felling job (felled != null) does not end with its last log: the leaves the felling
+     * orphaned (TreeFelling.findOrphans) are removed by further steps, a batch at a time.
+     */
+    static final class Job {
+        final Object player, world, foodStats;
+        final int ox, oy, oz, originId, maxCount;
+        final Drops drops = new Drops();
+        long[] vein;            // null while the search is running; the current batch when streamed
+        int next;
+        int minedCount;
+        int veinMined;          // minedCount without the origin: the blocks the tool wears for
+        DurabilityBudget budget;
+        long nanos;             // server-thread time spent on this operation
+
+        private VeinSearch stream;
+        private ChunkReader streamReader;
+        private long searchNanos;
+
+        long[] felled;          // logs removed, for TreeFelling; null unless felling a tree
+        private int felledCount;
+        private long[] orphans; // leaves still to remove after the logs, from orphanNext on
+        private int orphanNext;
+        private int leavesRemoved;
+
+        Job(Object player, Object world, Object foodStats, int ox, int oy, int oz, int originId, int maxCount) {
+            this.player = player;
+            this.world = world;
+            this.foodStats = foodStats;
+            this.ox = ox; this.oy = oy; this.oz = oz;
+            this.originId = originId;
+            this.maxCount = maxCount;
+        }
+
+        /**
+         * Blocks a search for this job looks for: maxCount, raised to OvmConfig.veinCacheSearch
+         * while the cache is on, so a vein larger than the budget can still be found whole.
+         */
+        int searchLimit() {
+            if (OvmConfig.veinCacheEntries <= 0 || maxCount <= 0) return maxCount;
+            return Math.max(maxCount, OvmConfig.veinCacheSearch);
+        }
+
+        /**
+         * Main thread: the vein is known. Fresh search results (up to searchLimit) are offered
+         * to VeinCache; the first maxCount positions are mined and charged to the player's
+         * rate limit.
+         */
+        void setVein(long[] vein, boolean searched) {
+            if (searched) VeinCache.store(world, originId, vein, searchLimit());
+            if (vein.length > maxCount) vein = java.util.Arrays.copyOf(vein, maxCount);
+            this.vein = vein;
+            OvmLog.debug("veinmine: originId={} vein={}{}", originId, vein.length, searched ? "" : " (cached)");
+            VeinAdmission.charge(player, vein.length);
+        }
+
+        /** Main thread: search while mining, batch by batch (see step). */
+        void stream(ChunkReader reader) {
+            streamReader = reader;
+            stream = new VeinSearch(reader, ox, oy, oz, originId, maxCount);
+            OvmLog.debug("veinmine: originId={} streamed, up to {} blocks", originId, maxCount);
+        }
+
+        void addFelled(long pos) {
+            if (felled == null) return;
+            if (felledCount == felled.length) felled = java.util.Arrays.copyOf(felled, felledCount * 2);
+            felled[felledCount++] = pos;
+        }
+
+        /** Record a phase that started at start (System.nanoTime) and ends now. */
+        void phase(int phase, long start) {
+            long d = System.nanoTime() - start;
+            OvmStats.record(phase, d);
+            nanos += d;
+        }
+
+        boolean isSearching() {
+            return vein == null && stream == null;
+        }
+
+        // Vein position → index, built on first willMine()
+        private LongIntMap index;
+
+        /** True if pos is in the vein and not yet reached by the cursor. */
+        boolean willMine(long pos) {
+            if (stream != null) return stream.covers(pos);
+            if (vein == null) return false;
+            if (index == null) {
+                index = new LongIntMap(vein.length);
+                for (int i = 0; i < vein.length; i++) index.put(vein[i], i);
             }
+            return index.get(pos, -1) >= next;
+        }
+
+        /** Mine up to batch blocks. Returns true when the job has nothing left to do. */
+        boolean step(int batch) {
+            try {
+                // Player left the world (disconnect, dimension change): stop, keep what was mined
+                if (Reflect.getField(player, Object.class, "worldObj", "p") != world) return true;
+
+                if (orphans != null) return leavesBatch(batch);
+
+                if (stream != null && (vein == null || next >= vein.length)) takeBatch(batch);
+
+                BulkRemoval removal = new BulkRemoval(world);
+                long t = System.nanoTime();
+                boolean done;
+                try {
+                    done = mineBatch(removal, batch);
+                } finally {
+                    phase(OvmStats.MINING, t);
+                    t = System.nanoTime();
+                    removal.flush();
+                    phase(OvmStats.UPDATES, t);
+                }
+                return done && !startLeaves();
+            } catch (Exception e) {
+                OvmLog.error("VeinMiner job error: {}", e);
+                return true;
+            }
+        }
+
+        /** Streamed: the next batch of the vein becomes the current one. */
+        private void takeBatch(int batch) {
+            long t = System.nanoTime();
+            streamReader.forget();
+            vein = stream.take(Math.max(batch, 1));
+            next = 0;
+            long d = System.nanoTime() - t;
+            searchNanos += d;
+            nanos += d;
+            VeinAdmission.charge(player, vein.length);
+        }
+
+        /** The logs are down: find the leaves they orphaned. Returns true if there are any to remove. */
+        private boolean startLeaves() {
+            if (felledCount == 0) return false;
+            long t = System.nanoTime();
+            long first = felled[0];
+            ChunkReader reader = new ChunkReader(world, PackedPos.x(first), PackedPos.y(first), PackedPos.z(first));
+            orphans = TreeFelling.findOrphans(reader, felled, felledCount);
+            felled = null;
+            felledCount = 0;
+            phase(OvmStats.LEAVES, t);
+            OvmLog.debug("felled tree: {} orphaned leaves", orphans.length);
+            return orphans.length > 0;
+        }
+
+        /** Remove the next batch of orphaned leaves. Returns true when none are left. */
+        private boolean leavesBatch(int batch) {
+            BulkRemoval removal = new BulkRemoval(world);
+            long t = System.nanoTime();
+            int end = Math.min(orphans.length, orphanNext + Math.max(batch, 1));
+            leavesRemoved += TreeFelling.removeLeaves(world, orphans, orphanNext, end, removal, drops);
+            orphanNext = end;
+            removal.flush();
+            phase(OvmStats.LEAVES, t);
+            return orphanNext >= orphans.length;
+        }
 
-            for (int[] pos : vein) {
-                int bx = pos[0], by = pos[1], bz = pos[2];
+        private boolean mineBatch(BulkRemoval removal, int batch) {
+            int end = Math.min(vein.length, next + Math.max(batch, 1));
+            int loadedX = Integer.MIN_VALUE, loadedZ = Integer.MIN_VALUE;
+            HarvestMemo harvest = HarvestMemo.of(player);
+            while (next < end) {
+                long pos = vein[next++];
+                int bx = PackedPos.x(pos), by = PackedPos.y(pos), bz = PackedPos.z(pos);
+                // World.getBlockId would load a chunk that unloaded since the search
+                if (bx >> 4 != loadedX || bz >> 4 != loadedZ) {
+                    if (!McAccessor.chunkExists(world, bx >> 4, bz >> 4)) {
+                        OvmStats.skippedUnloaded();
+                        continue;
+                    }
+                    loadedX = bx >> 4;
+                    loadedZ = bz >> 4;
+                }
                 int actualId = McAccessor.getBlockId(world, bx, by, bz);
-                if (!matchesTarget(actualId, originId)) continue;
+                int meta = McAccessor.getBlockMeta(world, bx, by, bz);
+                if (!BlockGroups.matchesMeta(actualId, meta, originId)) continue;
 
                 Object block = McAccessor.getBlock(actualId);
-                if (block == null || !invokeCanHarvest(player, block)) continue;
+                if (block == null || !harvest.canHarvest(player, block, actualId, meta)) continue;
 
-                int meta = McAccessor.getBlockMeta(world, bx, by, bz);
-                boolean harvested = invokeHarvestBlock(block, world, player, bx, by, bz, meta);
-                if (!harvested) collectBlockDrops(block, meta, drops);
-                McAccessor.setBlock(world, bx, by, bz, 0);
+                // harvestBlock's EntityItem spawns land in drops instead of the world
+                DropCapture.begin(world, drops);
+                boolean harvested;
+                try {
+                    harvested = invokeHarvestBlock(actualId, block, world, player, bx, by, bz, meta);
+                } finally {
+                    DropCapture.end();
+                }
+                if (!harvested) collectBlockDrops(actualId, block, meta, drops);
+                removal.remove(bx, by, bz, actualId);
+                VeinCache.onMined(world, pos);
+                addFelled(pos);
                 minedCount++;
-
-                Object held = McAccessor.getHeldItem(player);
-                if (held != null && isItemStackDamageable(held)) {
-                    damageItem(held, 1, player);
-                    if (McAccessor.getStackSize(held) <= 0) {
-                        System.out.println("[OVM] tool broke at block " + minedCount);
-                        break;
-                    }
+                // Tool wear is applied in finish(); the budget says where the tool breaks
+                if (++veinMined >= budget.blocks) {
+                    OvmLog.debug("tool or food budget spent at block {}", minedCount);
+                    return true;
                 }
             }
+            return next >= vein.length && (stream == null || stream.isExhausted());
+        }
 
-            deliverDrops(world, player, drops);
+        void finish() {
+            try {
+                if (stream != null) {
+                    OvmStats.searched(searchNanos, stream.count(), stream.probes());
+                    if (stream.wasCapped())
+                        OvmLog.info("vein search at ({},{},{}) stopped at the searchMemoryKiB cap", ox, oy, oz);
+                }
+                if (orphans != null) OvmLog.debug("felled tree: {} orphaned leaves removed", leavesRemoved);
+                long t = System.nanoTime();
+                DropDelivery.deliver(world, player, drops);
+                phase(OvmStats.DELIVERY, t);
+
+                t = System.nanoTime();
+                budget.apply(player, veinMined);
+                if (OvmConfig.hungerPerBlocks > 0 && minedCount > 0) {
+                    int pts = minedCount / OvmConfig.hungerPerBlocks;
+                    if (pts > 0) Reflect.invokeWithFloat(foodStats, 4.0f * pts, "addExhaustion", "a");
+                }
+                phase(OvmStats.HUNGER, t);
+                OvmStats.finished(player, minedCount, nanos);
 
-            if (OvmConfig.hungerPerBlocks > 0 && minedCount > 0) {
-                int pts = minedCount / OvmConfig.hungerPerBlocks;
-                if (pts > 0) Reflect.invokeWithFloat(foodStats, 4.0f * pts, "addExhaustion", "a");
+                OvmLog.debug("Veinmined {} blocks at ({},{},{})", minedCount, ox, oy, oz);
+            } catch (Exception e) {
+                OvmLog.error("VeinMiner finish error: {}", e);
             }
-
-            System.out.println("[OVM] Veinmined " + minedCount + " blocks at (" + ox + "," + oy + "," + oz + ")");
-        } catch (Exception e) {
-            System.out.println("[OVM] VeinMiner error: " + e);
-            e.printStackTrace();
         }
     }
 
@@ -135,256 +380,188 @@ public class VeinMiner {
     // Priority flood fill
     // -----------------------------------------------------------------------
 
-    private static final class PQEntry {
-        final long dist;
-        final int x, y, z;
-        PQEntry(long dist, int x, int y, int z) { this.dist = dist; this.x = x; this.y = y; this.z = z; }
-    }
-
-    private static List<int[]> buildVein(Object world, int ox, int oy, int oz, int targetId, int maxCount) {
-        List<int[]> result = new ArrayList<int[]>();
-        PriorityQueue<PQEntry> pq = new PriorityQueue<PQEntry>(16, new Comparator<PQEntry>() {
-            public int compare(PQEntry a, PQEntry b) { return Long.compare(a.dist, b.dist); }
-        });
-        Set<Long> visited = new HashSet<Long>();
-
-        visited.add(coordKey(ox, oy, oz));
-        pq.add(new PQEntry(0L, ox, oy, oz));
-
-        while (!pq.isEmpty() && result.size() < maxCount) {
-            PQEntry e = pq.poll();
-            int bx = e.x, by = e.y, bz = e.z;
-            int bid = McAccessor.getBlockId(world, bx, by, bz);
-            boolean isOrigin = (bx == ox && by == oy && bz == oz);
-            if (!matchesTarget(bid, targetId) && !isOrigin) continue;
-            if (matchesTarget(bid, targetId)) result.add(new int[]{ bx, by, bz });
-            for (int[] d : NEIGHBORS) {
-                int nx = bx + d[0], ny = by + d[1], nz = bz + d[2];
-                long nk = coordKey(nx, ny, nz);
-                if (!visited.contains(nk)) {
-                    visited.add(nk);
-                    if (matchesTarget(McAccessor.getBlockId(world, nx, ny, nz), targetId)) {
-                        long ddx = nx - ox, ddy = ny - oy, ddz = nz - oz;
-                        pq.add(new PQEntry(ddx * ddx + ddy * ddy + ddz * ddz, nx, ny, nz));
-                    }
-                }
-            }
-        }
-        return result;
+    /**
+     * Priority flood fill from the origin. Returns packed positions (PackedPos) in mining
+     * order: ascending squared distance, ties in discovery order.
+     * Frontier is a VeinQueue; visited state and block IDs live in a VoxelWindow, so every
+     * world position is read at most once and O(1) objects are allocated per call.
+     * Pure over its BlockSource: runs on the main thread or on an AsyncSearch worker.
+     * The fill itself lives in VeinSearch, which the client preview also advances per frame.
+     */
+    static long[] buildVein(BlockSource blocks, int ox, int oy, int oz, int targetId, int maxCount) {
+        long start = System.nanoTime();
+        VeinSearch search = new VeinSearch(blocks, ox, oy, oz, targetId, maxCount);
+        search.run();
+        OvmStats.searched(System.nanoTime() - start, search.count(), search.probes());
+        if (search.wasCapped()) OvmLog.info("vein search at ({},{},{}) stopped at the searchMemoryKiB cap", ox, oy, oz);
+        return search.result();
     }
 
     // -----------------------------------------------------------------------
     // Block-specific method resolution (specialized signatures, stays here)
     // -----------------------------------------------------------------------
 
-    // harvestBlock(World, EntityPlayer, int, int, int, int) → void
-    private static final HashMap<String, Method> harvestBlockCache = new HashMap<String, Method>();
+    /** Invokers resolved for one block class, stored per block ID. */
+    private static final class BlockCalls {
+        Invokers.Harvest harvestBlock;       // harvestBlock(World, EntityPlayer, int, int, int, int) → void
+        Invokers.IdDropped idDropped;        // idDropped(int, Random, int) → int
+        Invokers.IntObj quantityDropped;     // quantityDropped(Random) → int
+        Invokers.IntInt damageDropped;       // damageDropped(int) → int
+    }
+
+    // Block.blocksList is 4096 entries in 1.4.7
+    private static final AtomicReferenceArray<BlockCalls> blockCallsById = new AtomicReferenceArray<BlockCalls>(4096);
 
-    private static boolean invokeHarvestBlock(Object block, Object world, Object player, int x, int y, int z, int meta) {
-        String cls = block.getClass().getName();
-        Method m = harvestBlockCache.get(cls);
-        if (m == null) {
-            for (Method mtd : block.getClass().getMethods()) {
-                Class<?>[] p = mtd.getParameterTypes();
-                if (p.length == 6 && !p[0].isPrimitive() && !p[1].isPrimitive()
+    private static BlockCalls blockCalls(int id, Object block) {
+        boolean inRange = id >= 0 && id < blockCallsById.length();
+        BlockCalls c = inRange ? blockCallsById.get(id) : null;
+        if (c != null) return c;
+
+        c = new BlockCalls();
+        for (Method mtd : block.getClass().getMethods()) {
+            Class<?>[] p = mtd.getParameterTypes();
+            if (mtd.getReturnType() == void.class) {
+                if (c.harvestBlock == null && p.length == 6 && !p[0].isPrimitive() && !p[1].isPrimitive()
                         && p[2] == int.class && p[3] == int.class && p[4] == int.class && p[5] == int.class
-                        && mtd.getReturnType() == void.class
-                        && (mtd.getName().equals("harvestBlock") || mtd.getName().equals("b"))) {
-                    m = mtd;
-                    break;
-                }
+                        && (mtd.getName().equals("harvestBlock") || mtd.getName().equals("b")))
+                    c.harvestBlock = Invokers.bind(Invokers.Harvest.class, mtd);
+                continue;
             }
-            harvestBlockCache.put(cls, m);
+            if (mtd.getReturnType() != int.class) continue;
+            if (p.length == 3 && p[0] == int.class && p[1] == Random.class && p[2] == int.class)
+                c.idDropped = Invokers.bind(Invokers.IdDropped.class, mtd);
+            else if (p.length == 1 && p[0] == Random.class)
+                c.quantityDropped = Invokers.bind(Invokers.IntObj.class, mtd);
+            else if (p.length == 1 && p[0] == int.class
+                    && (mtd.getName().equals("damageDropped") || mtd.getName().equals("b")))
+                c.damageDropped = Invokers.bind(Invokers.IntInt.class, mtd);
         }
-        if (m == null) return false;
+        if (inRange) blockCallsById.set(id, c);
+        return c;
+    }
+
+    private static boolean invokeHarvestBlock(int id, Object block, Object world, Object player,
+                                              int x, int y, int z, int meta) {
+        Invokers.Harvest h = blockCalls(id, block).harvestBlock;
+        if (h == null) return false;
         try {
-            m.invoke(block, world, player, x, y, z, meta);
+            h.call(block, world, player, x, y, z, meta);
             return true;
         } catch (Exception e) {
-            System.out.println("[OVM] invokeHarvestBlock error: " + e);
+            OvmLog.error("invokeHarvestBlock error: {}", e);
             return false;
         }
     }
 
-    // Per-class cache: [0]=idDropped(int,Random,int), [1]=quantityDropped(Random), [2]=damageDropped(int)
-    private static final HashMap<String, Method[]> blockDropCache = new HashMap<String, Method[]>();
-
-    private static void collectBlockDrops(Object block, int meta, LinkedHashMap<Integer, int[]> merged) {
+    static void collectBlockDrops(int id, Object block, int meta, Drops drops) {
         try {
-            String cls = block.getClass().getName();
-            Method[] m = blockDropCache.get(cls);
-            if (m == null) {
-                m = new Method[3];
-                for (Method mtd : block.getClass().getMethods()) {
-                    if (mtd.getReturnType() != int.class) continue;
-                    Class<?>[] p = mtd.getParameterTypes();
-                    if (p.length == 3 && p[0] == int.class && p[1] == Random.class && p[2] == int.class)
-                        m[0] = mtd;
-                    else if (p.length == 1 && p[0] == Random.class)
-                        m[1] = mtd;
-                    else if (p.length == 1 && p[0] == int.class
-                            && (mtd.getName().equals("damageDropped") || mtd.getName().equals("b")))
-                        m[2] = mtd;
-                }
-                blockDropCache.put(cls, m);
-            }
+            BlockCalls c = blockCalls(id, block);
 
-            int dropId    = m[0] != null ? (Integer) m[0].invoke(block, meta, RAND, 0) : 0;
+            int dropId    = c.idDropped != null ? c.idDropped.call(block, meta, RAND, 0) : 0;
             if (dropId == 0) return;
-            int dropCount = m[1] != null ? (Integer) m[1].invoke(block, RAND) : 1;
+            int dropCount = c.quantityDropped != null ? c.quantityDropped.call(block, RAND) : 1;
             if (dropCount <= 0) return;
-            int dropDamage = m[2] != null ? (Integer) m[2].invoke(block, meta) : 0;
+            int dropDamage = c.damageDropped != null ? c.damageDropped.call(block, meta) : 0;
 
-            int key = dropId * 65536 + dropDamage;
-            int[] acc = merged.get(key);
-            if (acc == null) merged.put(key, new int[]{ dropId, dropDamage, dropCount });
-            else             acc[2] += dropCount;
+            drops.add(dropId, dropDamage, dropCount);
         } catch (Exception e) {
-            System.out.println("[OVM] collectBlockDrops error: " + e);
+            OvmLog.error("collectBlockDrops error: {}", e);
         }
     }
 
-    private static Method canHarvestMethod;
+    private static volatile Invokers.BoolObj canHarvestInvoker;
+    private static volatile boolean canHarvestResolved;
 
-    private static boolean invokeCanHarvest(Object player, Object block) {
+    /**
+     * EntityPlayer.canHarvestBlock(Block), resolved by signature: the boolean method taking
+     * exactly the Block class (the top of block's class hierarchy). Mining goes through
+     * HarvestMemo, which also takes the metadata into account.
+     */
+    static boolean invokeCanHarvest(Object player, Object block) {
         try {
-            if (canHarvestMethod == null) {
+            if (!canHarvestResolved) {
+                Class<?> blockClass = block.getClass();
+                while (blockClass.getSuperclass() != null && blockClass.getSuperclass() != Object.class)
+                    blockClass = blockClass.getSuperclass();
+                Method found = null;
                 for (Method m : player.getClass().getMethods()) {
-                    if (m.getParameterTypes().length == 1
-                            && (m.getName().equals("canHarvestBlock") || m.getName().length() == 1)
-                            && m.getReturnType() == boolean.class) {
-                        try { m.invoke(player, block); canHarvestMethod = m; break; }
-                        catch (Exception ignored) {}
-                    }
+                    Class<?>[] p = m.getParameterTypes();
+                    if (p.length == 1 && p[0] == blockClass && m.getReturnType() == boolean.class
+                            && (found == null || m.getName().equals("canHarvestBlock"))) found = m;
                 }
+                if (found != null) canHarvestInvoker = Invokers.bind(Invokers.BoolObj.class, found);
+                else OvmLog.warn("EntityPlayer.canHarvestBlock not found, harvest checks skipped");
+                canHarvestResolved = true;
             }
-            return canHarvestMethod != null ? (Boolean) canHarvestMethod.invoke(player, block) : true;
+            return canHarvestInvoker != null ? canHarvestInvoker.call(player, block) : true;
         } catch (Exception ignored) { return true; }
     }
 
-    private static Method damageItemMethod;
+    private static volatile Invokers.VoidIntObj damageItemInvoker;
 
-    private static void damageItem(Object stack, int amount, Object player) {
+    static void damageItem(Object stack, int amount, Object player) {
         try {
-            if (damageItemMethod == null) {
+            if (damageItemInvoker == null) {
+                Method found = null;
                 for (Method m : stack.getClass().getMethods()) {
                     Class<?>[] p = m.getParameterTypes();
                     if (p.length == 2 && p[0] == int.class && !p[1].isPrimitive()
                             && (m.getName().equals("damageItem") || m.getName().equals("a"))
                             && m.getReturnType() == void.class
                             && p[1].isAssignableFrom(player.getClass())) {
-                        damageItemMethod = m; break;
+                        found = m; break;
                     }
                 }
-                if (damageItemMethod == null) {
+                if (found == null) {
                     for (Method m : stack.getClass().getMethods()) {
                         Class<?>[] p = m.getParameterTypes();
                         if (p.length == 2 && p[0] == int.class && !p[1].isPrimitive()) {
-                            damageItemMethod = m; break;
+                            found = m; break;
                         }
                     }
                 }
+                damageItemInvoker = Invokers.bind(Invokers.VoidIntObj.class, found);
             }
-            if (damageItemMethod != null) damageItemMethod.invoke(stack, amount, player);
+            if (damageItemInvoker != null) damageItemInvoker.call(stack, amount, player);
         } catch (Exception e) {
-            System.out.println("[OVM] damageItem error: " + e);
+            OvmLog.error("damageItem error: {}", e);
         }
     }
 
-    private static boolean isItemStackDamageable(Object stack) {
-        return Reflect.invokeNoArg(stack, boolean.class, "isItemStackDamageable", "f", "q");
-    }
-
-    // -----------------------------------------------------------------------
-    // Drop delivery
-    // -----------------------------------------------------------------------
+    private static volatile Invokers.BoolNoArg isDamageableInvoker;
 
-    private static void deliverDrops(Object world, Object player, LinkedHashMap<Integer, int[]> drops) {
-        if (drops.isEmpty()) return;
-        for (Map.Entry<Integer, int[]> entry : drops.entrySet()) {
-            int[] acc = entry.getValue();
-            int remaining = acc[2];
-            while (remaining > 0) {
-                int batch = Math.min(remaining, 64);
-                remaining -= batch;
-                Object stack = McAccessor.makeItemStack(acc[0], acc[1], batch);
-                if (stack == null) continue;
-                if (OvmConfig.dropsToInventory) {
-                    int leftover = McAccessor.addToInventory(player, stack);
-                    if (leftover > 0) {
-                        Object overflow = McAccessor.makeItemStack(acc[0], acc[1], leftover);
-                        if (overflow != null) McAccessor.spawnItem(world, player, overflow);
-                    }
-                } else {
-                    McAccessor.spawnItem(world, player, stack);
+    static boolean isItemStackDamageable(Object stack) {
+        try {
+            if (isDamageableInvoker == null) {
+                for (String n : new String[]{ "isItemStackDamageable", "f", "q" }) {
+                    try {
+                        Method m = stack.getClass().getMethod(n);
+                        if (m.getReturnType() == boolean.class) {
+                            isDamageableInvoker = Invokers.bind(Invokers.BoolNoArg.class, m);
+                            break;
+                        }
+                    } catch (Exception ignored) {}
                 }
             }
-        }
+            return isDamageableInvoker != null && isDamageableInvoker.call(stack);
+        } catch (Exception e) { return false; }
     }
 
     // -----------------------------------------------------------------------
     // Vanilla drop suppression
     // -----------------------------------------------------------------------
 
-    private static Method getEntitiesMethod;
-
-    /** Remove EntityItems within 2 blocks of the given position (vanilla drops from origin block). */
-    @SuppressWarnings("unchecked")
+    /**
+     * Remove EntityItems within 2 blocks of the given position (vanilla drops from origin block).
+     * Fallback for when DropCapture did not see the origin's drops spawn.
+     */
     private static void removeDroppedItems(Object world, int x, int y, int z) {
-        try {
-            // EntityItem class
-            Class<?> eiClass = null;
-            for (String cname : new String[]{ "net.minecraft.entity.item.EntityItem", "px" }) {
-                try { eiClass = Class.forName(cname); break; }
-                catch (Exception ignored) {}
-            }
-            if (eiClass == null) return;
-
-            // AxisAlignedBB.getBoundingBox(minX, minY, minZ, maxX, maxY, maxZ)
-            Class<?> aabbClass = null;
-            for (String cname : new String[]{ "net.minecraft.util.AxisAlignedBB", "aoe" }) {
-                try { aabbClass = Class.forName(cname); break; }
-                catch (Exception ignored) {}
-            }
-            if (aabbClass == null) return;
-
-            // Static factory: AxisAlignedBB.getBoundingBox / obf "a" (6 doubles → AABB)
-            Object aabb = null;
-            for (String n : new String[]{ "getBoundingBox", "a" }) {
-                try {
-                    Method m = aabbClass.getMethod(n, double.class, double.class, double.class,
-                                                      double.class, double.class, double.class);
-                    aabb = m.invoke(null, x - 1.0, y - 1.0, z - 1.0, x + 2.0, y + 2.0, z + 2.0);
-                    if (aabb != null) break;
-                } catch (Exception ignored) {}
-            }
-            if (aabb == null) return;
-
-            // World.getEntitiesWithinAABB(Class, AABB) / obf "a"
-            if (getEntitiesMethod == null) {
-                for (String n : new String[]{ "getEntitiesWithinAABB", "a" }) {
-                    try {
-                        getEntitiesMethod = world.getClass().getMethod(n, Class.class, aabbClass);
-                        break;
-                    } catch (Exception ignored) {}
-                }
-            }
-            if (getEntitiesMethod == null) return;
-
-            List<?> entities = (List<?>) getEntitiesMethod.invoke(world, eiClass, aabb);
-            if (entities == null || entities.isEmpty()) return;
-
-            for (Object entity : entities) {
-                // entity.setDead() / obf "x"
-                Reflect.invokeNoArg(entity, void.class, "setDead", "x");
-            }
-            System.out.println("[OVM] removed " + entities.size() + " vanilla drops near origin");
-        } catch (Exception e) {
-            System.out.println("[OVM] removeDroppedItems error: " + e);
+        List<?> entities = McAccessor.getEntityItemsIn(world, x - 1.0, y - 1.0, z - 1.0, x + 2.0, y + 2.0, z + 2.0);
+        if (entities.isEmpty()) return;
+        for (Object entity : entities) {
+            // entity.setDead() / obf "x"
+            Reflect.invokeNoArg(entity, void.class, "setDead", "x");
         }
-    }
-
-    private static long coordKey(int x, int y, int z) {
-        return ((long)(x + 30000)) * 60001L * 512L + ((long)(y + 256)) * 60001L + (z + 30000);
+        OvmLog.debug("removed {} vanilla drops near origin", entities.size());
     }
 }
@@ -0,0 +1,275 @@
+package com.ovm;
+
+import cpw.mods.fml.relauncher.Side;
+import cpw.mods.fml.relauncher.SideOnly;
+import org.lwjgl.opengl.GL11;
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Client-side outline of the blocks a veinmine at the crosshair would take.
+ *
+ * The vein is found with the same VeinSearch as the server, over the client world, but
+ * advanced from the render hook in slices of OvmConfig.previewBudgetMicros per frame; the
+ * outline appears once the search finishes. The result is kept until the crosshair target
+ * changes or a block near it changes (IWorldAccess listener on the client world: inside the
+ * search window while searching, inside the vein's box plus one block afterwards).
+ *
+ * Outlines are compiled once per result into a GL display list (only faces not shared with
+ * another vein block) and drawn with a single glCallList per frame, translated by the
+ * interpolated camera position. Uses the client's maxBlocks, which may differ from the server.
+ * Client thread only.
+ */
+@SideOnly(Side.CLIENT)
+final class VeinPreview {
+
+    // Outline drawn slightly outside the block so it does not z-fight with its faces
+    private static final float GROW = 0.002f;
+
+    // Face directions and, per face, the four corners of its outline (unit cube, 0/1 per axis)
+    private static final int[][] FACES = {
+        { -1, 0, 0 }, { 1, 0, 0 }, { 0, -1, 0 }, { 0, 1, 0 }, { 0, 0, -1 }, { 0, 0, 1 }
+    };
+    private static final int[][][] FACE_CORNERS = {
+        { { 0, 0, 0 }, { 0, 1, 0 }, { 0, 1, 1 }, { 0, 0, 1 } },
+        { { 1, 0, 0 }, { 1, 1, 0 }, { 1, 1, 1 }, { 1, 0, 1 } },
+        { { 0, 0, 0 }, { 1, 0, 0 }, { 1, 0, 1 }, { 0, 0, 1 } },
+        { { 0, 1, 0 }, { 1, 1, 0 }, { 1, 1, 1 }, { 0, 1, 1 } },
+        { { 0, 0, 0 }, { 1, 0, 0 }, { 1, 1, 0 }, { 0, 1, 0 } },
+        { { 0, 0, 1 }, { 1, 0, 1 }, { 1, 1, 1 }, { 0, 1, 1 } },
+    };
+
+    // Current target (targetId is canonical)
+    private static Object world;
+    private static int targetX, targetY, targetZ, targetId;
+    private static boolean active;
+
+    // Search in progress (null when finished or idle) and the last finished result
+    private static VeinSearch search;
+    private static int searchHalf;
+    private static long[] vein;
+    private static int minX, minY, minZ, maxX, maxY, maxZ;
+    private static boolean dirty;
+
+    // Display list holding the outline of vein, in coordinates relative to listX/Y/Z
+    private static int displayList;
+    private static boolean listStale;
+    private static int listX, listY, listZ;
+    private static boolean listEmpty = true;
+
+    // Client worlds with our listener installed
+    private static final Map<Object, Boolean> watched = new WeakHashMap<Object, Boolean>();
+
+    // Render-path fields, resolved once: Minecraft.thePlayer, Entity.posX/Y/Z, lastTickPosX/Y/Z
+    private static Field playerField;
+    private static Field[] posFields;
+    private static boolean fieldsResolved;
+
+    /** Called each client tick while the activation key is held and the crosshair is on a block. */
+    static void show(int x, int y, int z, int block) {
+        if (OvmConfig.previewBudgetMicros <= 0) { hide(); return; }
+        Object mc = McAccessor.getMc();
+        Object w = mc != null ? Reflect.getField(mc, Object.class, "theWorld", "e") : null;
+        if (w == null) { hide(); return; }
+        int blockId = BlockGroups.idOf(block);
+        int id = BlockGroups.canonical(BlockGroups.key(blockId, block >>> 12));
+
+        boolean sameTarget = active && w == world && x == targetX && y == targetY && z == targetZ && id == targetId;
+        if (sameTarget && !dirty) return;
+
+        Object player = Reflect.getField(mc, Object.class, "thePlayer", "g");
+        Object mcBlock = McAccessor.getBlock(blockId);
+        if (player == null || mcBlock == null || !VeinMiner.invokeCanHarvest(player, mcBlock)) { hide(); return; }
+        if (!isWatched(w)) { hide(); return; }
+
+        // Target moved: drop the old outline now. Nearby change: keep it until the new one is ready.
+        if (!sameTarget) {
+            vein = null;
+            listStale = true;
+        }
+        world = w;
+        targetX = x; targetY = y; targetZ = z; targetId = id;
+        active = true;
+        dirty = false;
+        search = new VeinSearch(new ChunkReader(w, x, y, z), x, y, z, id, OvmConfig.maxBlocks);
+        searchHalf = VoxelWindow.halfSize(OvmConfig.maxBlocks);
+    }
+
+    /** Called each client tick when there is nothing to preview. */
+    static void hide() {
+        if (!active) return;
+        active = false;
+        world = null;
+        search = null;
+        vein = null;
+        listStale = true;
+    }
+
+    /** RenderWorldLastEvent: advance the search within the frame budget, then draw the outline. */
+    static void render(float partialTicks) {
+        if (search != null) {
+            long deadline = System.nanoTime() + OvmConfig.previewBudgetMicros * 1000L;
+            if (search.advance(deadline)) {
+                vein = search.result();
+                search = null;
+                updateBounds();
+                listStale = true;
+            }
+        }
+        if (listStale) {
+            compile();
+            listStale = false;
+        }
+        if (!active || listEmpty) return;
+
+        double[] cam = cameraPosition(partialTicks);
+        if (cam == null) return;
+
+        GL11.glPushAttrib(GL11.GL_ALL_ATTRIB_BITS);
+        GL11.glDisable(GL11.GL_TEXTURE_2D);
+        GL11.glDisable(GL11.GL_LIGHTING);
+        GL11.glDisable(GL11.GL_CULL_FACE);
+        GL11.glDisable(GL11.GL_DEPTH_TEST);
+        GL11.glDepthMask(false);
+        GL11.glEnable(GL11.GL_BLEND);
+        GL11.glBlendFunc(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA);
+        GL11.glLineWidth(2.0f);
+        GL11.glColor4f(1.0f, 1.0f, 1.0f, 0.6f);
+        GL11.glPushMatrix();
+        GL11.glTranslated(listX - cam[0], listY - cam[1], listZ - cam[2]);
+        GL11.glCallList(displayList);
+        GL11.glPopMatrix();
+        GL11.glPopAttrib();
+    }
+
+    /** Rebuild the display list from vein: outline of every face not shared with another vein block. */
+    private static void compile() {
+        listEmpty = vein == null || vein.length == 0;
+        if (listEmpty) return;
+        if (displayList == 0) {
+            displayList = GL11.glGenLists(1);
+            if (displayList == 0) { listEmpty = true; return; }
+        }
+        LongIntMap members = new LongIntMap(vein.length);
+        for (long p : vein) members.put(p, 1);
+
+        listX = targetX; listY = targetY; listZ = targetZ;
+        GL11.glNewList(displayList, GL11.GL_COMPILE);
+        GL11.glBegin(GL11.GL_LINES);
+        for (long p : vein) {
+            int x = PackedPos.x(p), y = PackedPos.y(p), z = PackedPos.z(p);
+            float rx = x - listX, ry = y - listY, rz = z - listZ;
+            for (int f = 0; f < 6; f++) {
+                int[] d = FACES[f];
+                if (members.get(PackedPos.pack(x + d[0], y + d[1], z + d[2]), 0) != 0) continue;
+                int[][] c = FACE_CORNERS[f];
+                for (int i = 0; i < 4; i++) {
+                    int[] a = c[i], b = c[(i + 1) & 3];
+                    vertex(rx, ry, rz, a);
+                    vertex(rx, ry, rz, b);
+                }
+            }
+        }
+        GL11.glEnd();
+        GL11.glEndList();
+    }
+
+    private static void vertex(float rx, float ry, float rz, int[] corner) {
+        GL11.glVertex3f(rx + (corner[0] == 0 ? -GROW : 1 + GROW),
+                        ry + (corner[1] == 0 ? -GROW : 1 + GROW),
+                        rz + (corner[2] == 0 ? -GROW : 1 + GROW));
+    }
+
+    /** Bounding box of the finished vein plus the neighbour shell (where a change can affect it). */
+    private static void updateBounds() {
+        minX = minY = minZ = Integer.MAX_VALUE;
+        maxX = maxY = maxZ = Integer.MIN_VALUE;
+        for (long p : vein) {
+            int x = PackedPos.x(p), y = PackedPos.y(p), z = PackedPos.z(p);
+            if (x < minX) minX = x; if (x > maxX) maxX = x;
+            if (y < minY) minY = y; if (y > maxY) maxY = y;
+            if (z < minZ) minZ = z; if (z > maxZ) maxZ = z;
+        }
+        minX--; minY--; minZ--;
+        maxX++; maxY++; maxZ++;
+    }
+
+    private static boolean near(int x, int y, int z) {
+        if (search != null)
+            return Math.abs(x - targetX) <= searchHalf && Math.abs(y - targetY) <= searchHalf
+                && Math.abs(z - targetZ) <= searchHalf;
+        return vein != null && x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ;
+    }
+
+    private static boolean isWatched(final Object w) {
+        Boolean ok = watched.get(w);
+        if (ok == null) {
+            ok = McAccessor.addBlockListener(w, "OvmVeinPreviewListener", new McAccessor.BlockListener() {
+                @Override
+                public void onBlockMarked(int x, int y, int z) {
+                    if (active && w == world && near(x, y, z)) dirty = true;
+                }
+
+                @Override
+                public void onRangeMarked(int x1, int y1, int z1, int x2, int y2, int z2) {
+                    if (!active || w != world) return;
+                    // While searching: the point of the range closest to the target is in the window
+                    boolean hit = search != null
+                        ? near(clamp(targetX, x1, x2), clamp(targetY, y1, y2), clamp(targetZ, z1, z2))
+                        : vein != null && x2 >= minX && x1 <= maxX && y2 >= minY && y1 <= maxY
+                          && z2 >= minZ && z1 <= maxZ;
+                    if (hit) dirty = true;
+                }
+            });
+            if (!ok) OvmLog.warn("world listener unavailable; vein preview disabled");
+            watched.put(w, ok);
+        }
+        return ok;
+    }
+
+    private static int clamp(int v, int lo, int hi) {
+        return v < lo ? lo : v > hi ? hi : v;
+    }
+
+    /** Interpolated position of the player (the render camera): lastTickPos + (pos - lastTickPos) * partialTicks. */
+    private static double[] cameraPosition(float partialTicks) {
+        try {
+            Object mc = McAccessor.getMc();
+            if (mc == null) return null;
+            if (!fieldsResolved) {
+                fieldsResolved = true;
+                playerField = field(mc.getClass(), "thePlayer", "g");
+                Object player = playerField != null ? playerField.get(mc) : null;
+                if (player == null) { fieldsResolved = false; return null; }
+                Field[] f = {
+                    field(player.getClass(), "posX", "t"), field(player.getClass(), "posY", "u"),
+                    field(player.getClass(), "posZ", "v"), field(player.getClass(), "lastTickPosX", "S"),
+                    field(player.getClass(), "lastTickPosY", "T"), field(player.getClass(), "lastTickPosZ", "U")
+                };
+                boolean ok = true;
+                for (Field x : f) ok &= x != null && x.getType() == double.class;
+                posFields = ok ? f : null;
+            }
+            if (playerField == null || posFields == null) return null;
+            Object player = playerField.get(mc);
+            if (player == null) return null;
+            double[] cam = new double[3];
+            for (int i = 0; i < 3; i++) {
+                double last = posFields[i + 3].getDouble(player);
+                cam[i] = last + (posFields[i].getDouble(player) - last) * partialTicks;
+            }
+            return cam;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static Field field(Class<?> cls, String... names) {
+        for (String n : names) {
+            try { return Reflect.findField(cls, n); }
+            catch (NoSuchFieldException ignored) {}
+        }
+        return null;
+    }
+}
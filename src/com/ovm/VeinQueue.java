@@ -0,0 +1,151 @@
+package com.ovm;
+
+import java.util.Arrays;
+
+/**
+ * Bucket priority queue of packed positions keyed by squared distance from the origin.
+ *
+ * Squared distances are small non-negative integers, so each one gets a FIFO bucket:
+ * add and poll are O(1) amortized with no per-entry objects. Entries live in primitive
+ * arrays (pos + next link) and popped slots are recycled. Distances at or beyond
+ * DENSE_BUCKETS (only reachable by long thin veins) go to a small binary heap instead.
+ *
+ * Ordering: ascending distance, ties in insertion order. A neighbour can be closer to the
+ * origin than the block it was reached from, so add() may move the cursor backwards.
+ */
+final class VeinQueue {
+
+    private static final int DENSE_BUCKETS = 1 << 16;
+
+    // Entry pool: singly linked per bucket, free slots chained through next[]
+    private long[] pos = new long[64];
+    private int[] next = new int[64];
+    private int allocated;
+    private int freeHead = -1;
+
+    // Bucket d: head[d] / tail[d] hold entry index + 1 (0 = empty)
+    private int[] head = new int[64];
+    private int[] tail = new int[64];
+    private int cursor;
+    private int denseCount;
+
+    // Far entries: min-heap on (dist, seq) with positions alongside
+    private long[] farDist = new long[0];
+    private long[] farSeq = new long[0];
+    private long[] farPos = new long[0];
+    private int farCount;
+    private long seq;
+
+    boolean isEmpty() { return denseCount == 0 && farCount == 0; }
+
+    int size() { return denseCount + farCount; }
+
+    void add(long dist, long p) {
+        if (dist >= DENSE_BUCKETS) { farPush(dist, p); return; }
+        int d = (int) dist;
+        if (d >= head.length) {
+            int cap = head.length;
+            while (cap <= d) cap <<= 1;
+            head = Arrays.copyOf(head, cap);
+            tail = Arrays.copyOf(tail, cap);
+        }
+        int e = allocEntry();
+        pos[e] = p;
+        next[e] = -1;
+        if (head[d] == 0) head[d] = e + 1;
+        else              next[tail[d] - 1] = e;
+        tail[d] = e + 1;
+        if (d < cursor) cursor = d;
+        denseCount++;
+    }
+
+    /** The closest position, left in the queue. Caller checks isEmpty() first. */
+    long peek() {
+        if (denseCount > 0) {
+            while (head[cursor] == 0) cursor++;
+            return pos[head[cursor] - 1];
+        }
+        return farPos[0];
+    }
+
+    /** Remove and return the closest position. Caller checks isEmpty() first. */
+    long poll() {
+        if (denseCount > 0) {
+            while (head[cursor] == 0) cursor++;
+            int e = head[cursor] - 1;
+            int n = next[e];
+            if (n < 0) { head[cursor] = 0; tail[cursor] = 0; }
+            else       head[cursor] = n + 1;
+            denseCount--;
+            long p = pos[e];
+            next[e] = freeHead;
+            freeHead = e;
+            return p;
+        }
+        return farPop();
+    }
+
+    private int allocEntry() {
+        if (freeHead >= 0) {
+            int e = freeHead;
+            freeHead = next[e];
+            return e;
+        }
+        if (allocated == pos.length) {
+            pos = Arrays.copyOf(pos, allocated * 2);
+            next = Arrays.copyOf(next, allocated * 2);
+        }
+        return allocated++;
+    }
+
+    // -----------------------------------------------------------------------
+    // Far heap
+    // -----------------------------------------------------------------------
+
+    private void farPush(long dist, long p) {
+        if (farCount == farDist.length) {
+            int cap = Math.max(16, farCount * 2);
+            farDist = Arrays.copyOf(farDist, cap);
+            farSeq = Arrays.copyOf(farSeq, cap);
+            farPos = Arrays.copyOf(farPos, cap);
+        }
+        int i = farCount++;
+        long s = seq++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!farLess(dist, s, parent)) break;
+            farMove(parent, i);
+            i = parent;
+        }
+        farDist[i] = dist; farSeq[i] = s; farPos[i] = p;
+    }
+
+    private long farPop() {
+        long top = farPos[0];
+        int last = --farCount;
+        long dist = farDist[last], s = farSeq[last], p = farPos[last];
+        int i = 0;
+        while (true) {
+            int c = 2 * i + 1;
+            if (c >= farCount) break;
+            if (c + 1 < farCount && farLess(farDist[c + 1], farSeq[c + 1], c)) c++;
+            if (!farLessThan(farDist[c], farSeq[c], dist, s)) break;
+            farMove(c, i);
+            i = c;
+        }
+        if (farCount > 0) { farDist[i] = dist; farSeq[i] = s; farPos[i] = p; }
+        return top;
+    }
+
+    private boolean farLess(long dist, long s, int j) {
+        return farLessThan(dist, s, farDist[j], farSeq[j]);
+    }
+
+    private static boolean farLessThan(long d1, long s1, long d2, long s2) {
+        return d1 < d2 || (d1 == d2 && s1 < s2);
+    }
+
+    private void farMove(int from, int to) {
+        farDist[to] = farDist[from]; farSeq[to] = farSeq[from]; farPos[to] = farPos[from];
+    }
+}
@@ -0,0 +1,99 @@
+package com.ovm;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Server-tick driven scheduler for vein mining jobs.
+ *
+ * veinmine() only searches and enqueues; the mining itself runs here, from the server tick
+ * handler, in batches of OvmConfig.blocksPerBatch. Players are served round-robin (one batch
+ * of their oldest job per turn) until OvmConfig.tickBudgetMicros is used up, so one big vein
+ * or one busy player cannot take the whole tick. At least one batch runs every tick.
+ * A player's jobs run one after another, in request order; a job whose search is still
+ * running on an AsyncSearch worker is skipped.
+ *
+ * Main server thread only (packets and ticks both arrive there).
+ */
+public class VeinScheduler {
+
+    private static final Map<Object, ArrayDeque<VeinMiner.Job>> jobsByPlayer =
+        new HashMap<Object, ArrayDeque<VeinMiner.Job>>();
+    private static final List<Object> rotation = new ArrayList<Object>();
+    private static int cursor;
+
+    static void submit(VeinMiner.Job job) {
+        ArrayDeque<VeinMiner.Job> queue = jobsByPlayer.get(job.player);
+        if (queue == null) {
+            queue = new ArrayDeque<VeinMiner.Job>();
+            jobsByPlayer.put(job.player, queue);
+            rotation.add(job.player);
+        }
+        queue.addLast(job);
+    }
+
+    /** Queued jobs (including the one in progress) of one player. */
+    static int jobsOf(Object player) {
+        ArrayDeque<VeinMiner.Job> queue = jobsByPlayer.get(player);
+        return queue != null ? queue.size() : 0;
+    }
+
+    /** Queued jobs across all players. */
+    static int totalJobs() {
+        int total = 0;
+        for (ArrayDeque<VeinMiner.Job> queue : jobsByPlayer.values()) total += queue.size();
+        return total;
+    }
+
+    /** True if a queued job in this world still has pos ahead of it in its vein. */
+    static boolean covers(Object world, long pos) {
+        for (ArrayDeque<VeinMiner.Job> queue : jobsByPlayer.values())
+            for (VeinMiner.Job job : queue)
+                if (job.world == world && job.willMine(pos)) return true;
+        return false;
+    }
+
+    /** Server stopping: drop all jobs (their worlds are going away). */
+    static void clear() {
+        jobsByPlayer.clear();
+        rotation.clear();
+        cursor = 0;
+    }
+
+    public static boolean isIdle() {
+        return rotation.isEmpty();
+    }
+
+    /** Advance jobs round-robin until the tick budget is spent or nothing is left. */
+    public static void tick() {
+        AsyncSearch.drain();
+        if (rotation.isEmpty()) return;
+        long deadline = System.nanoTime() + OvmConfig.tickBudgetMicros * 1000L;
+        int idle = 0;   // consecutive players whose job is still searching
+        do {
+            if (cursor >= rotation.size()) cursor = 0;
+            Object player = rotation.get(cursor);
+            ArrayDeque<VeinMiner.Job> queue = jobsByPlayer.get(player);
+            VeinMiner.Job job = queue.peekFirst();
+            if (job.isSearching()) {
+                cursor++;
+                if (++idle >= rotation.size()) break;
+                continue;
+            }
+            idle = 0;
+            if (job.step(OvmConfig.blocksPerBatch)) {
+                queue.pollFirst();
+                job.finish();
+                if (queue.isEmpty()) {
+                    jobsByPlayer.remove(player);
+                    rotation.remove(cursor);
+                    continue;               // cursor now points at the next player
+                }
+            }
+            cursor++;
+        } while (!rotation.isEmpty() && System.nanoTime() < deadline);
+    }
+}
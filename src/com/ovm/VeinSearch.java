@@ -0,0 +1,254 @@
+package com.ovm;
+
+import java.util.Arrays;
+
+/**
+ * Resumable priority flood fill from one origin (see VeinMiner.buildVein).
+ *
+ * Holds the frontier (VeinQueue), the VoxelWindow and the result so far, so the fill can
+ * stop at a deadline and continue later from the same state. The server runs it to the end
+ * in one call; the client preview advances it a slice per frame.
+ *
+ * Solid volumes (stone, dirt, netherrack) take a fast path first: the fill's output over an
+ * all-matching world is the same for every origin, so it is computed once (sphereTable) and
+ * the search walks it, reading only the blocks it returns. While every listed block matches,
+ * the real fill would pop exactly these positions in this order (a block the table skips can
+ * only be missing from the frontier, never reorder it). At the first block that does not
+ * match, the walk is discarded and the fill starts over from the origin; block IDs read so
+ * far stay in the window, so nothing is read twice.
+ *
+ * Memory is bounded by OvmConfig.searchMemoryKiB: a quarter for the frontier (discoveries
+ * past the cap are left unvisited, to be found again from a later neighbour) and the rest for
+ * VoxelWindow pages. Large operations stream: take() hands out the next positions and forgets
+ * them, so a job mines while its search is still running and no full result list exists.
+ *
+ * Over a ChunkSnapshot a read can throw ChunkSnapshot.MISSING. Every step reads what it needs
+ * before it changes any state (the fill asks the snapshot for the sections around the block
+ * it is about to expand), so after the missing sections are copied the same search resumes.
+ */
+final class VeinSearch {
+
+    // 26-neighbor offsets (full 3x3x3 minus center)
+    private static final int[][] NEIGHBORS = new int[26][3];
+    static {
+        int idx = 0;
+        for (int dx = -1; dx <= 1; dx++)
+            for (int dy = -1; dy <= 1; dy++)
+                for (int dz = -1; dz <= 1; dz++)
+                    if (dx != 0 || dy != 0 || dz != 0)
+                        NEIGHBORS[idx++] = new int[]{ dx, dy, dz };
+    }
+
+    // Positions popped between deadline checks (System.nanoTime is not free)
+    private static final int CHECK_EVERY = 32;
+
+    // Largest vein served by the fast path (the shared table costs 8 bytes per position)
+    private static final int MAX_TABLE = 1 << 18;
+
+    private final int ox, oy, oz, targetId, maxCount;
+    private final long origin;
+    private final VeinQueue queue = new VeinQueue();
+    private final VoxelWindow window;
+    private final ChunkSnapshot snapshot;   // blocks, when reads may throw MISSING
+    private final int frontierCap;
+    private boolean frontierFull;
+
+    // Positions [taken, count) in found order; earlier ones were handed out by take()
+    private long[] result;
+    private int count, taken;
+
+    // Fill matches still to skip after a fast-path fallback (already found by the walk)
+    private int replay;
+
+    // Fast path: offsets from the origin in fill order (origin first); null once irregular
+    private long[] table;
+    private int tableIndex;
+
+    // Fill order over an all-matching world, as offsets; grows to the largest maxCount seen
+    private static volatile long[] sphere = new long[0];
+
+    private static final BlockSource SOLID = new BlockSource() {
+        @Override
+        public int getBlockId(int x, int y, int z) {
+            return 1;
+        }
+
+        @Override
+        public int getBlockMetadata(int x, int y, int z) {
+            return 0;
+        }
+    };
+
+    VeinSearch(BlockSource blocks, int ox, int oy, int oz, int targetId, int maxCount) {
+        this(blocks, ox, oy, oz, targetId, maxCount, true);
+    }
+
+    private VeinSearch(BlockSource blocks, int ox, int oy, int oz, int targetId, int maxCount, boolean fastPath) {
+        this.ox = ox;
+        this.oy = oy;
+        this.oz = oz;
+        this.targetId = targetId;
+        this.maxCount = maxCount;
+        this.result = new long[Math.min(maxCount, 1024)];
+        // The sphere table is built uncapped: a truncated table would be wrong, not just short
+        long budget = fastPath ? Math.max(OvmConfig.searchMemoryKiB, 1) * 1024L : Long.MAX_VALUE / 2;
+        this.frontierCap = (int) Math.min(budget / 4 / 12, Integer.MAX_VALUE); // VeinQueue: 12 bytes per entry
+        int maxPages = (int) Math.min(budget / 4 * 3 / VoxelWindow.PAGE_BYTES, Integer.MAX_VALUE);
+        this.window = new VoxelWindow(blocks, ox, oy, oz, maxCount, maxPages);
+        this.snapshot = blocks instanceof ChunkSnapshot ? (ChunkSnapshot) blocks : null;
+        this.origin = PackedPos.pack(ox, oy, oz);
+        if (fastPath && maxCount < MAX_TABLE) {
+            table = sphereTable(maxCount + 1); // one extra: the origin need not match
+        } else {
+            startFill();
+        }
+    }
+
+    /**
+     * The first n positions of the fill over an all-matching world, as PackedPos offsets
+     * from the origin. Shared and never modified; a longer table is built when a larger n is
+     * requested (its prefix is the shorter table, since the window size does not affect order).
+     */
+    static long[] sphereTable(int n) {
+        long[] t = sphere;
+        if (t.length >= n) return t;
+        synchronized (SOLID) {
+            t = sphere;
+            if (t.length >= n) return t;
+            VeinSearch s = new VeinSearch(SOLID, 0, 0, 0, 1, n, false);
+            s.run();
+            sphere = t = s.result();
+            OvmLog.debug("sphere table: {} offsets", t.length);
+            return t;
+        }
+    }
+
+    private void startFill() {
+        window.visit(ox, oy, oz);
+        queue.add(0L, origin);
+    }
+
+    boolean isDone() {
+        if (count >= maxCount) return true;
+        return table == null && queue.isEmpty();
+    }
+
+    /** True when the search is done and take() has handed out everything. */
+    boolean isExhausted() {
+        return isDone() && taken == count;
+    }
+
+    /** True if the memory cap cut the search short (pages or frontier). */
+    boolean wasCapped() {
+        return frontierFull || window.isFull();
+    }
+
+    /**
+     * Streaming: search until n positions are ready (or the search is done), hand them out
+     * in mining order and drop them from the result.
+     */
+    long[] take(int n) {
+        while (count - taken < n && !isDone()) expandNext();
+        int ready = count - taken;
+        int k = Math.min(n, ready);
+        long[] out = Arrays.copyOf(result, k);
+        System.arraycopy(result, k, result, 0, ready - k);
+        taken += k;
+        return out;
+    }
+
+    /** True if pos was read by this search and matched the target (found or still queued). */
+    boolean covers(long pos) {
+        int id = window.knownId(PackedPos.x(pos), PackedPos.y(pos), PackedPos.z(pos));
+        return id >= 0 && BlockGroups.matches(id, targetId);
+    }
+
+    /** Run the fill to completion. */
+    void run() {
+        while (!isDone()) expandNext();
+    }
+
+    /** Advance until done or System.nanoTime() passes deadline. Returns isDone(). */
+    boolean advance(long deadline) {
+        while (!isDone()) {
+            for (int i = 0; i < CHECK_EVERY && !isDone(); i++) expandNext();
+            if (System.nanoTime() - deadline >= 0) break;
+        }
+        return isDone();
+    }
+
+    int count() {
+        return count;
+    }
+
+    /** Block reads so far. */
+    int probes() {
+        return window.reads();
+    }
+
+    /** Positions found so far (and not taken), in mining order. */
+    long[] result() {
+        int n = count - taken;
+        return n == result.length ? result : Arrays.copyOf(result, n);
+    }
+
+    private void append(long p) {
+        int n = count - taken;
+        if (n == result.length) result = Arrays.copyOf(result, Math.min(maxCount, n * 2));
+        result[n] = p;
+        count++;
+    }
+
+    private void expandNext() {
+        if (table != null) {
+            walkTable();
+            return;
+        }
+        long p = queue.peek();
+        int bx = PackedPos.x(p), by = PackedPos.y(p), bz = PackedPos.z(p);
+        if (snapshot != null) snapshot.require(bx, by, bz);
+        queue.poll();
+        boolean matches = BlockGroups.matches(window.id(bx, by, bz), targetId);
+        if (!matches && p != origin) return;
+        if (matches) {
+            if (replay == 0) {
+                append(p);
+            } else if (--replay == 0) {
+                window.uncapped = false;
+            }
+        }
+        for (int[] d : NEIGHBORS) {
+            if (queue.size() >= frontierCap && replay == 0) {
+                frontierFull = true;
+                break;
+            }
+            int nx = bx + d[0], ny = by + d[1], nz = bz + d[2];
+            if (window.visit(nx, ny, nz) && BlockGroups.matches(window.id(nx, ny, nz), targetId)) {
+                long ddx = nx - ox, ddy = ny - oy, ddz = nz - oz;
+                queue.add(ddx * ddx + ddy * ddy + ddz * ddz, PackedPos.pack(nx, ny, nz));
+            }
+        }
+    }
+
+    /**
+     * One step of the fast path: take the next table position, or fall back to the fill.
+     * The fill finds the walked positions again first and in the same order, so those already
+     * taken are skipped (with the memory cap lifted, which could otherwise change that order)
+     * and the rest are found again.
+     */
+    private void walkTable() {
+        long d = table[tableIndex];
+        int x = ox + PackedPos.x(d), y = oy + PackedPos.y(d), z = oz + PackedPos.z(d);
+        if (BlockGroups.matches(window.id(x, y, z), targetId)) {
+            append(PackedPos.pack(x, y, z));
+        } else if (tableIndex != 0) {
+            table = null;
+            count = taken;
+            replay = taken;
+            window.uncapped = replay > 0;
+            startFill();
+            return;
+        }
+        tableIndex++;
+    }
+}
@@ -0,0 +1,174 @@
+package com.ovm;
+
+/**
+ * Dense per-operation voxel window centred on the vein origin.
+ *
+ * Holds the flood fill's visited bit and a memo of the block key (BlockGroups.key: the ID, with
+ * the metadata for IDs split by metadata) for every position the search touches, so each world
+ * position is read at most once per operation. Keys are stored as unsigned shorts. Inside the
+ * window both are flat arrays (a bitset and a short[]). Positions outside it live in 16^3
+ * pages of the same two arrays (512 bytes of bits, 8 KiB of IDs), allocated when the vein
+ * first reaches them and found through a LongIntMap keyed by page.
+ *
+ * The window half-size covers a sphere of maxBlocks plus one neighbour shell, capped at
+ * MAX_HALF (a 49^3 window: 14 KB of bits, 230 KB of IDs). Pages are capped at maxPages:
+ * past it, new positions count as visited and read as air, so the search ends at the edge
+ * of what it has already paged in (isFull) instead of growing without bound.
+ */
+final class VoxelWindow {
+
+    private static final int MAX_HALF = 24;
+
+    // Stored for positions not read yet (BlockGroups never builds this key)
+    private static final short UNREAD = (short) 0xFFFF;
+
+    /** Bytes held by one page outside the window. */
+    static final int PAGE_BYTES = 4096 / 8 + 4096 * 2;
+
+    private final BlockSource reader;
+    private final int minX, minY, minZ, side;
+    private final long[] visited;
+    private final short[] ids;
+    private int reads;
+
+    // Pages outside the window: page key (PackedPos of x >> 4, y >> 4, z >> 4) → slot
+    private final int maxPages;
+    private LongIntMap pageSlots;
+    private long[][] pageVisited;
+    private short[][] pageIds;
+    private int pages;
+    private boolean full;
+
+    /** While set, maxPages is not enforced (VeinSearch re-finding blocks it already handed out). */
+    boolean uncapped;
+
+    VoxelWindow(BlockSource reader, int ox, int oy, int oz, int maxBlocks, int maxPages) {
+        this.reader = reader;
+        this.maxPages = maxPages;
+        int half = halfSize(maxBlocks);
+        this.side = 2 * half + 1;
+        this.minX = ox - half;
+        this.minY = oy - half;
+        this.minZ = oz - half;
+        int cells = side * side * side;
+        this.visited = new long[(cells + 63) >> 6];
+        this.ids = new short[cells];
+        java.util.Arrays.fill(ids, UNREAD);
+    }
+
+    /** Smallest half-size whose cube holds a ball of maxBlocks blocks plus its neighbour shell. */
+    static int halfSize(int maxBlocks) {
+        int r = (int) Math.ceil(Math.cbrt(3.0 * Math.max(maxBlocks, 1) / (4.0 * Math.PI))) + 1;
+        return Math.min(r, MAX_HALF);
+    }
+
+    /** World reads so far (each position is read at most once). */
+    int reads() {
+        return reads;
+    }
+
+    /** Pages allocated outside the window. */
+    int pages() {
+        return pages;
+    }
+
+    /** True once a position was refused for lack of pages. */
+    boolean isFull() {
+        return full;
+    }
+
+    /** Memoized block key at the position, or -1 if it has not been read. Never reads. */
+    int knownId(int x, int y, int z) {
+        int idx = index(x, y, z);
+        int slot = idx >= 0 || pageSlots == null ? -1 : pageSlots.get(pageKey(x, y, z), -1);
+        short v = idx >= 0 ? ids[idx] : slot >= 0 ? pageIds[slot][pageIndex(x, y, z)] : UNREAD;
+        return v == UNREAD ? -1 : v & 0xFFFF;
+    }
+
+    /** Mark the position visited. Returns false if it already was. */
+    boolean visit(int x, int y, int z) {
+        int idx = index(x, y, z);
+        if (idx >= 0) {
+            long bit = 1L << idx;
+            if ((visited[idx >> 6] & bit) != 0) return false;
+            visited[idx >> 6] |= bit;
+            return true;
+        }
+        int slot = page(x, y, z);
+        if (slot < 0) return false;
+        int i = pageIndex(x, y, z);
+        long bit = 1L << i;
+        long[] bits = pageVisited[slot];
+        if ((bits[i >> 6] & bit) != 0) return false;
+        bits[i >> 6] |= bit;
+        return true;
+    }
+
+    /** Block key at the position; read from the world on first request only. */
+    int id(int x, int y, int z) {
+        int idx = index(x, y, z);
+        if (idx >= 0) {
+            short v = ids[idx];
+            if (v != UNREAD) return v & 0xFFFF;
+            int key = read(x, y, z);
+            ids[idx] = (short) key;
+            return key;
+        }
+        int slot = page(x, y, z);
+        if (slot < 0) return 0;
+        short[] pageId = pageIds[slot];
+        int i = pageIndex(x, y, z);
+        short v = pageId[i];
+        if (v != UNREAD) return v & 0xFFFF;
+        int key = read(x, y, z);
+        pageId[i] = (short) key;
+        return key;
+    }
+
+    private int read(int x, int y, int z) {
+        int id = reader.getBlockId(x, y, z);
+        reads++;
+        return BlockGroups.needsMeta(id) ? BlockGroups.key(id, reader.getBlockMetadata(x, y, z)) : id;
+    }
+
+    private int index(int x, int y, int z) {
+        int dx = x - minX, dy = y - minY, dz = z - minZ;
+        if (dx < 0 || dy < 0 || dz < 0 || dx >= side || dy >= side || dz >= side) return -1;
+        return (dy * side + dz) * side + dx;
+    }
+
+    private static long pageKey(int x, int y, int z) {
+        return PackedPos.pack(x >> 4, y >> 4, z >> 4);
+    }
+
+    private static int pageIndex(int x, int y, int z) {
+        return (y & 15) << 8 | (z & 15) << 4 | (x & 15);
+    }
+
+    /** Slot of the page holding the position, allocating it if needed; -1 when out of pages. */
+    private int page(int x, int y, int z) {
+        long key = pageKey(x, y, z);
+        if (pageSlots == null) {
+            pageSlots = new LongIntMap(16);
+            pageVisited = new long[16][];
+            pageIds = new short[16][];
+        }
+        int slot = pageSlots.get(key, -1);
+        if (slot >= 0) return slot;
+        if (pages >= maxPages && !uncapped) {
+            full = true;
+            return -1;
+        }
+        if (pages == pageIds.length) {
+            pageVisited = java.util.Arrays.copyOf(pageVisited, pages * 2);
+            pageIds = java.util.Arrays.copyOf(pageIds, pages * 2);
+        }
+        slot = pages++;
+        pageVisited[slot] = new long[4096 / 64];
+        short[] pageId = new short[4096];
+        java.util.Arrays.fill(pageId, UNREAD);
+        pageIds[slot] = pageId;
+        pageSlots.put(key, slot);
+        return slot;
+    }
+}